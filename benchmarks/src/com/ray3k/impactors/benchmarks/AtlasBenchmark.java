@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.benchmarks;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.AtlasRegion;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.utils.ObjectMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link TextureAtlas#findRegion(String)} searches the regions in order, as
+ * the entities do each time one is created. A name keyed map is the
+ * baseline.
+ * @author Raymond
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AtlasBenchmark {
+    private static final int LOOKUPS = 256;
+    
+    @Param({"16", "128", "1024"})
+    public int regions;
+    
+    private Texture texture;
+    private TextureAtlas atlas;
+    private ObjectMap<String, AtlasRegion> regionsByName;
+    private String[] names;
+    
+    @Setup
+    public void setup() {
+        NullContext.install();
+        Pixmap pixmap = new Pixmap(64, 64, Pixmap.Format.RGBA8888);
+        texture = new Texture(pixmap);
+        pixmap.dispose();
+        
+        atlas = new TextureAtlas();
+        regionsByName = new ObjectMap<String, AtlasRegion>();
+        for (int i = 0; i < regions; i++) {
+            String name = "region-" + i;
+            regionsByName.put(name, atlas.addRegion(name, texture, 0, 0, 8, 8));
+        }
+        
+        RandomXS128 random = new RandomXS128(1234L);
+        names = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            names[i] = "region-" + random.nextInt(regions);
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        texture.dispose();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int findRegion() {
+        int sum = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            sum += atlas.findRegion(names[i]).getRegionWidth();
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int mapLookup() {
+        int sum = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            sum += regionsByName.get(names[i]).getRegionWidth();
+        }
+        return sum;
+    }
+}
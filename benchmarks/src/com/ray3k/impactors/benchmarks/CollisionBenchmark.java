@@ -0,0 +1,122 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.benchmarks;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongArray;
+import com.ray3k.impactors.Entity;
+import com.ray3k.impactors.EntityManager;
+import com.ray3k.impactors.Narrowphase;
+import com.ray3k.impactors.SpatialHash;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Broadphase and narrowphase over a frozen world, the same way
+ * {@link EntityManager} runs them each tick.
+ * @author Raymond
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int count;
+    
+    @Param({"ASTEROID_FIELD", "BULLET_STORM"})
+    public Scenario scenario;
+    
+    @Param({"false", "true"})
+    public boolean parallel;
+    
+    private EntityManager manager;
+    private Array<Entity> entities;
+    private SpatialHash spatialHash;
+    private Narrowphase narrowphase;
+    private IntArray pairs;
+    private LongArray contacts;
+    
+    @Setup
+    public void setup() {
+        manager = scenario.create(count, null);
+        entities = manager.getEntities();
+        spatialHash = new SpatialHash(EntityManager.DEFAULT_CELL_SIZE);
+        narrowphase = new Narrowphase();
+        narrowphase.setParallel(parallel);
+        pairs = new IntArray();
+        contacts = new LongArray();
+    }
+    
+    @Benchmark
+    public IntArray broadphase() {
+        insertAll();
+        pairs.clear();
+        spatialHash.findPairs(pairs);
+        return pairs;
+    }
+    
+    @Benchmark
+    public LongArray broadphaseAndNarrowphase() {
+        insertAll();
+        pairs.clear();
+        spatialHash.findPairs(pairs);
+        contacts.clear();
+        narrowphase.run(spatialHash, pairs, manager.getTransforms(), Scenario.DELTA, contacts);
+        return contacts;
+    }
+    
+    private void insertAll() {
+        spatialHash.clear(manager.getWorldWidth(), manager.getWorldHeight());
+        for (int i = 0; i < entities.size; i++) {
+            Entity entity = entities.get(i);
+            if (entity.isCheckingCollisions()) {
+                float x = entity.getCollisionBox().x;
+                float y = entity.getCollisionBox().y;
+                float width = entity.getCollisionBoxWidth();
+                float height = entity.getCollisionBoxHeight();
+                if (entity.isFast()) {
+                    float dx = entity.getXspeed() * Scenario.DELTA;
+                    float dy = entity.getYspeed() * Scenario.DELTA;
+                    spatialHash.insert(entity, Math.min(x, x - dx), Math.min(y, y - dy), width + Math.abs(dx), height + Math.abs(dy));
+                } else {
+                    spatialHash.insert(entity, x, y, width, height);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.benchmarks;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.ray3k.impactors.Entity;
+import com.ray3k.impactors.EntityManager;
+import com.ray3k.impactors.RenderQueue;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * CPU side of drawing: walking the depth buckets and filling the sprite
+ * batch, against a GL that does nothing, and recording the render queue on
+ * its own. drawCulled views only a window sized corner of the world, which
+ * at larger counts holds a fraction of the entities. The per frame depth
+ * sort the manager used to do is kept as a baseline.
+ * @author Raymond
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DrawBenchmark {
+    private static final float VIEW_SIZE = 800.0f;
+    
+    @Param({"100", "1000", "10000"})
+    public int count;
+    
+    private EntityManager manager;
+    private Texture texture;
+    private SpriteBatch spriteBatch;
+    private RenderQueue queue;
+    private Array<Entity> sorted;
+    private Comparator<Entity> depthComparator;
+    
+    @Setup
+    public void setup() {
+        NullContext.install();
+        Pixmap pixmap = new Pixmap(32, 32, Pixmap.Format.RGBA8888);
+        texture = new Texture(pixmap);
+        pixmap.dispose();
+        spriteBatch = new SpriteBatch();
+        queue = new RenderQueue();
+        
+        manager = Scenario.ASTEROID_FIELD.create(count, new TextureRegion(texture));
+        sorted = new Array<Entity>();
+        depthComparator = new Comparator<Entity>() {
+            @Override
+            public int compare(Entity o1, Entity o2) {
+                return o2.getDepth() - o1.getDepth();
+            }
+        };
+    }
+    
+    @TearDown
+    public void tearDown() {
+        spriteBatch.dispose();
+        texture.dispose();
+    }
+    
+    @Benchmark
+    public SpriteBatch draw() {
+        spriteBatch.begin();
+        manager.draw(spriteBatch, 0.5f);
+        spriteBatch.end();
+        return spriteBatch;
+    }
+    
+    @Benchmark
+    public SpriteBatch drawCulled() {
+        manager.getRenderQueue().setView(0.0f, 0.0f, VIEW_SIZE, VIEW_SIZE);
+        spriteBatch.begin();
+        manager.draw(spriteBatch, 0.5f);
+        spriteBatch.end();
+        manager.getRenderQueue().clearView();
+        return spriteBatch;
+    }
+    
+    @Benchmark
+    public RenderQueue record() {
+        queue.clear();
+        manager.record(queue, 0.5f);
+        queue.sort();
+        return queue;
+    }
+    
+    @Benchmark
+    public Array<Entity> sortByDepth() {
+        sorted.clear();
+        sorted.addAll(manager.getEntities());
+        sorted.sort(depthComparator);
+        return sorted;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.benchmarks;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.ray3k.impactors.headless.HeadlessGraphics;
+import com.ray3k.impactors.headless.NullGL20;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Loads the natives and installs a {@link NullGL20} with matching mock
+ * graphics and an application stub, so benchmarks can create textures and
+ * sprite batches without a window.
+ * @author Raymond
+ */
+public final class NullContext {
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 800;
+    
+    private NullContext() {
+    }
+    
+    public static synchronized void install() {
+        if (Gdx.gl == null) {
+            GdxNativesLoader.load();
+            GL20 gl = NullGL20.create();
+            Gdx.gl = gl;
+            Gdx.gl20 = gl;
+            Gdx.graphics = new HeadlessGraphics(WIDTH, HEIGHT, gl);
+            Gdx.app = (Application) Proxy.newProxyInstance(Application.class.getClassLoader(), new Class<?>[] {Application.class}, new ApplicationHandler());
+        }
+    }
+    
+    /**
+     * Shaders and managed textures are keyed by the application, so there
+     * has to be one. Everything else answers with a default.
+     */
+    private static class ApplicationHandler implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if (name.equals("getType")) {
+                return Application.ApplicationType.HeadlessDesktop;
+            } else if (name.equals("getGraphics")) {
+                return Gdx.graphics;
+            } else if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (name.equals("equals")) {
+                return proxy == args[0];
+            } else if (name.equals("toString")) {
+                return "NullContext";
+            }
+            
+            Class<?> type = method.getReturnType();
+            if (type == int.class || type == long.class) {
+                return type == int.class ? (Object) 0 : (Object) 0L;
+            } else if (type == boolean.class) {
+                return false;
+            } else {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.benchmarks;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
+import com.ray3k.impactors.EntityManager;
+import com.ray3k.impactors.entities.CollisionCategories;
+import com.ray3k.impactors.entities.EntityTypes;
+
+/**
+ * Synthetic worlds for the benchmarks. The world grows with the entity count
+ * so density stays close to a real game. Every world is built from a fixed
+ * seed.
+ * @author Raymond
+ */
+public enum Scenario {
+    /**
+     * Asteroids of mixed sizes drifting at game speeds.
+     */
+    ASTEROID_FIELD,
+    /**
+     * Fast bullets crossing a sparse asteroid field. One in ten entities is
+     * an asteroid.
+     */
+    BULLET_STORM,
+    /**
+     * Slow dust spreading from a few burst points. Dust never collides.
+     */
+    DUST_BURST;
+    
+    public static final float DELTA = 1.0f / 60.0f;
+    private static final long SEED = 1234L;
+    private static final float AREA_PER_ENTITY = 48.0f * 48.0f;
+    private static final int DUST_PER_BURST = 100;
+    
+    /**
+     * Creates a manager holding count entities of this scenario.
+     * @param count
+     * @param region drawn by every entity, or null
+     * @return 
+     */
+    public EntityManager create(int count, TextureRegion region) {
+        RandomXS128 random = new RandomXS128(SEED);
+        float size = Math.max(800.0f, (float) Math.sqrt(count * AREA_PER_ENTITY));
+        
+        EntityManager manager = new EntityManager();
+        manager.setWorldSize(size, size);
+        
+        int bursts = Math.max(1, count / DUST_PER_BURST);
+        float[] burstX = new float[bursts];
+        float[] burstY = new float[bursts];
+        for (int i = 0; i < bursts; i++) {
+            burstX[i] = random.nextFloat() * size;
+            burstY[i] = random.nextFloat() * size;
+        }
+        
+        for (int i = 0; i < count; i++) {
+            SyntheticEntity entity = manager.addEntity(new SyntheticEntity(manager));
+            entity.setTextureRegion(region);
+            entity.setDepth(random.nextInt(4) - 1);
+            float direction = random.nextFloat() * 360.0f;
+            
+            if (this == DUST_BURST) {
+                int burst = i % bursts;
+                entity.setPosition(burstX[burst] + random.nextFloat() * 16.0f, burstY[burst] + random.nextFloat() * 16.0f);
+                entity.setMotion(MathUtils.lerp(15.0f, 100.0f, random.nextFloat()), direction);
+                entity.setCollisionBoxSize(4.0f, 4.0f);
+                entity.setTypeId(EntityTypes.DUST);
+                entity.setCollisionCategory(CollisionCategories.DUST);
+                entity.setCollisionMask(0);
+            } else if (this == BULLET_STORM && i % 10 != 0) {
+                entity.setPosition(random.nextFloat() * size, random.nextFloat() * size);
+                entity.setMotion(700.0f, direction);
+                entity.setCollisionBoxSize(4.0f, 4.0f);
+                entity.setCheckingCollisions(true);
+                entity.setFast(true);
+                entity.setTypeId(EntityTypes.BULLET);
+                entity.setCollisionCategory(CollisionCategories.BULLET);
+                entity.setCollisionMask(0);
+            } else {
+                float boxSize = 16.0f * (1 << random.nextInt(3));
+                entity.setPosition(random.nextFloat() * size, random.nextFloat() * size);
+                entity.setMotion(MathUtils.lerp(50.0f, 150.0f, random.nextFloat()), direction);
+                entity.setCollisionBoxSize(boxSize, boxSize);
+                entity.setCheckingCollisions(true);
+                entity.setTypeId(EntityTypes.ASTEROID);
+                entity.setCollisionCategory(CollisionCategories.ASTEROID);
+                entity.setCollisionMask(CollisionCategories.BULLET);
+            }
+            entity.updateCollisionBox();
+        }
+        
+        //run one tick so every entity has a previous transform to draw from
+        manager.act(DELTA);
+        return manager;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.benchmarks;
+
+import com.badlogic.gdx.utils.Array;
+import com.ray3k.impactors.Entity;
+import com.ray3k.impactors.EntityManager;
+import com.ray3k.impactors.EntityView;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of a whole {@link EntityManager#act(float)} tick, of integration on
+ * its own, and of getting at the entity list.
+ * @author Raymond
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulationBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int count;
+    
+    @Param({"ASTEROID_FIELD", "BULLET_STORM", "DUST_BURST"})
+    public Scenario scenario;
+    
+    private EntityManager manager;
+    
+    @Setup
+    public void setup() {
+        manager = scenario.create(count, null);
+    }
+    
+    @Benchmark
+    public EntityManager act() {
+        manager.act(Scenario.DELTA);
+        return manager;
+    }
+    
+    @Benchmark
+    public EntityManager integrate() {
+        manager.getTransforms().integrate(Scenario.DELTA);
+        return manager;
+    }
+    
+    @Benchmark
+    public Array<Entity> copyEntities() {
+        return manager.getEntities();
+    }
+    
+    @Benchmark
+    public float iterateView() {
+        float sum = 0.0f;
+        EntityView<SyntheticEntity> view = manager.view(SyntheticEntity.class);
+        for (int i = 0; i < view.size(); i++) {
+            sum += view.get(i).getX();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.benchmarks;
+
+import com.ray3k.impactors.Entity;
+import com.ray3k.impactors.EntityManager;
+import com.ray3k.impactors.RenderQueue;
+
+/**
+ * Entity with no behavior besides wrapping around the world, so benchmarks
+ * measure the manager rather than game logic.
+ * @author Raymond
+ */
+public class SyntheticEntity extends Entity {
+
+    public SyntheticEntity(EntityManager manager) {
+        super(manager, null);
+    }
+
+    @Override
+    public void create() {
+    }
+
+    @Override
+    public void act(float delta) {
+        float width = getManager().getWorldWidth();
+        float height = getManager().getWorldHeight();
+        
+        if (getX() < 0) {
+            setX(getX() + width);
+        } else if (getX() > width) {
+            setX(getX() - width);
+        }
+        
+        if (getY() < 0) {
+            setY(getY() + height);
+        } else if (getY() > height) {
+            setY(getY() - height);
+        }
+    }
+
+    @Override
+    public void act_end(float delta) {
+    }
+
+    @Override
+    public void draw(RenderQueue queue, float alpha) {
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    @Override
+    public void collision(Entity other) {
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.PixmapIO;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.AtlasRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Keeps the atlas packed at runtime on disk, keyed by a hash of the source
+ * images. While the images are unchanged, later startups load the saved
+ * pages instead of decoding and packing every image again. The same hash is
+ * written next to the atlas packed at build time, so a prebuilt atlas that
+ * no longer matches the images is passed over.
+ * @author Raymond
+ */
+public class AtlasCache {
+    public static final String CACHE_PATH = "cache/atlas";
+    public static final String ATLAS_PATH = CACHE_PATH + "/impactors.atlas";
+    //bump when the packer settings change so old caches are not reused
+    private static final int VERSION = 2;
+    private static final String HASH_PATH = CACHE_PATH + "/impactors-v" + VERSION + ".hash";
+    //written by the packAtlas task with the same hash as update
+    private static final String PREBUILT_HASH_PATH = Core.DATA_PATH + "/atlas/impactors.hash";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private String hash;
+
+    /**
+     * Hashes the path, size and content of every image that would be packed,
+     * directory images in sorted order followed by the extra files. The
+     * packAtlas task in core/build.gradle must hash the same way.
+     * @param imagePacks the directories and image names found by the scan
+     * @param extraFiles loose images packed alongside the directories
+     */
+    public void update(ObjectMap<String, Array<String>> imagePacks, String... extraFiles) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new GdxRuntimeException(e);
+        }
+        
+        Array<String> paths = new Array<String>();
+        for (String directory : imagePacks.keys()) {
+            for (String name : imagePacks.get(directory)) {
+                paths.add(directory + "/" + name + ".png");
+            }
+        }
+        paths.sort();
+        paths.addAll(extraFiles);
+        
+        for (String path : paths) {
+            FileHandle file = Gdx.files.local(path);
+            digest.update(path.getBytes(UTF8));
+            long length = file.length();
+            for (int i = 0; i < 8; i++) {
+                digest.update((byte) (length >>> i * 8));
+            }
+            digest.update(file.readBytes());
+        }
+        
+        StringBuilder builder = new StringBuilder();
+        for (byte b : digest.digest()) {
+            builder.append(Integer.toHexString((b & 0xFF) | 0x100).substring(1));
+        }
+        hash = builder.toString();
+    }
+
+    /**
+     * @return true if the saved atlas was packed from the images last passed
+     * to {@link #update(ObjectMap, String...)}
+     */
+    public boolean isCached() {
+        return matches(HASH_PATH, ATLAS_PATH);
+    }
+
+    /**
+     * @return true if the atlas packed at build time was packed from the
+     * images last passed to {@link #update(ObjectMap, String...)}
+     */
+    public boolean isPrebuilt() {
+        return matches(PREBUILT_HASH_PATH, Core.ATLAS_PATH);
+    }
+    
+    private boolean matches(String hashPath, String atlasPath) {
+        FileHandle hashFile = Gdx.files.local(hashPath);
+        return hash != null && hashFile.exists() && Gdx.files.local(atlasPath).exists() && hash.equals(hashFile.readString().trim());
+    }
+    
+    /**
+     * Writes the packed atlas to the cache on a background thread. The page
+     * pixmaps are copied first, so the packer may be disposed at any time.
+     * @param atlas the atlas generated by the packer
+     * @param packer
+     */
+    public void save(TextureAtlas atlas, PixmapPacker packer) {
+        if (hash == null) {
+            return;
+        }
+        
+        final Array<Pixmap> pages = new Array<Pixmap>();
+        Array<Texture> textures = new Array<Texture>();
+        for (PixmapPacker.Page page : packer.getPages()) {
+            Pixmap source = page.getPixmap();
+            Pixmap copy = new Pixmap(source.getWidth(), source.getHeight(), source.getFormat());
+            ByteBuffer pixels = source.getPixels();
+            copy.getPixels().put(pixels);
+            copy.getPixels().rewind();
+            pixels.rewind();
+            pages.add(copy);
+            textures.add(page.getTexture());
+        }
+        
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < pages.size; i++) {
+            Pixmap page = pages.get(i);
+            builder.append("\nimpactors").append(i + 1).append(".png\n");
+            builder.append("size: ").append(page.getWidth()).append(',').append(page.getHeight()).append('\n');
+            builder.append("format: ").append(page.getFormat()).append('\n');
+            builder.append("filter: Linear,Linear\n");
+            builder.append("repeat: none\n");
+            for (AtlasRegion region : atlas.getRegions()) {
+                if (region.getTexture() == textures.get(i)) {
+                    builder.append(region.name).append('\n');
+                    builder.append("  rotate: false\n");
+                    builder.append("  xy: ").append(region.getRegionX()).append(", ").append(region.getRegionY()).append('\n');
+                    builder.append("  size: ").append(region.getRegionWidth()).append(", ").append(region.getRegionHeight()).append('\n');
+                    builder.append("  orig: ").append(region.getRegionWidth()).append(", ").append(region.getRegionHeight()).append('\n');
+                    builder.append("  offset: 0, 0\n");
+                    builder.append("  index: -1\n");
+                }
+            }
+        }
+        
+        final String savedHash = hash;
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    FileHandle folder = Gdx.files.local(CACHE_PATH);
+                    folder.deleteDirectory();
+                    folder.mkdirs();
+                    for (int i = 0; i < pages.size; i++) {
+                        PixmapIO.writePNG(folder.child("impactors" + (i + 1) + ".png"), pages.get(i));
+                    }
+                    Gdx.files.local(ATLAS_PATH).writeString(builder.toString(), false);
+                    //written last, a cache is only valid once everything else is on disk
+                    Gdx.files.local(HASH_PATH).writeString(savedHash, false);
+                } catch (GdxRuntimeException e) {
+                    Gdx.app.error(AtlasCache.class.getSimpleName(), "Could not save the atlas cache", e);
+                } finally {
+                    for (Pixmap page : pages) {
+                        page.dispose();
+                    }
+                }
+            }
+        }, "atlas-cache");
+        thread.start();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.impactors;
+
+/**
+ * Table of collision handlers indexed by the type ids of both entities in a
+ * pair. Pairs without a registered handler fall back to
+ * {@link Entity#collision(Entity)} on each side whose mask accepts the other.
+ * @author Raymond
+ */
+public class CollisionDispatcher {
+    public static final int MAX_TYPES = 32;
+    private final CollisionHandler[] handlers;
+    private final boolean[] swapped;
+
+    public CollisionDispatcher() {
+        handlers = new CollisionHandler[MAX_TYPES * MAX_TYPES];
+        swapped = new boolean[MAX_TYPES * MAX_TYPES];
+    }
+    
+    /**
+     * Registers a handler for every pair of the given types. The handler is
+     * always called with an entity of typeA first, whichever order the pair
+     * is found in.
+     * @param typeA
+     * @param typeB
+     * @param handler 
+     */
+    public void register(int typeA, int typeB, CollisionHandler handler) {
+        handlers[typeA * MAX_TYPES + typeB] = handler;
+        swapped[typeA * MAX_TYPES + typeB] = false;
+        if (typeA != typeB) {
+            handlers[typeB * MAX_TYPES + typeA] = handler;
+            swapped[typeB * MAX_TYPES + typeA] = true;
+        }
+    }
+    
+    public void unregister(int typeA, int typeB) {
+        handlers[typeA * MAX_TYPES + typeB] = null;
+        handlers[typeB * MAX_TYPES + typeA] = null;
+    }
+    
+    public void clear() {
+        for (int i = 0; i < handlers.length; i++) {
+            handlers[i] = null;
+        }
+    }
+    
+    public void dispatch(Entity entity, Entity other) {
+        int index = entity.getTypeId() * MAX_TYPES + other.getTypeId();
+        CollisionHandler handler = handlers[index];
+        
+        if (handler != null) {
+            if (swapped[index]) {
+                handler.collide(other, entity);
+            } else {
+                handler.collide(entity, other);
+            }
+        } else {
+            if ((entity.getCollisionMask() & other.getCollisionCategory()) != 0) {
+                entity.collision(other);
+            }
+            
+            if (!entity.isDestroyed() && !other.isDestroyed() && (other.getCollisionMask() & entity.getCollisionCategory()) != 0) {
+                other.collision(entity);
+            }
+        }
+    }
+}
@@ -4,7 +4,6 @@ import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.assets.loaders.resolvers.LocalFileHandleResolver;
-import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.g2d.PixmapPacker;
@@ -14,6 +13,8 @@ import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.TimeUtils;
+import com.ray3k.impactors.audio.AudioManager;
+import com.ray3k.impactors.profiling.Profiler;
 import com.ray3k.impactors.states.GameOverState;
 import com.ray3k.impactors.states.GameState;
 import com.ray3k.impactors.states.LoadingState;
@@ -23,22 +24,29 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.Locale;
 import javax.swing.JOptionPane;
 
 public class Core extends ApplicationAdapter {
     public final static String VERSION = "1";
     public final static String DATA_PATH = "impactors_data";
-    private final static long MS_PER_UPDATE = 10;
+    public final static String ATLAS_PATH = DATA_PATH + "/atlas/impactors.atlas";
+    public final static float DEFAULT_TICK_RATE = 60.0f;
+    public final static int DEFAULT_MAX_CATCH_UP_STEPS = 5;
+    private float tickRate = DEFAULT_TICK_RATE;
+    private long nanosPerTick = Math.round(1000000000.0 / DEFAULT_TICK_RATE);
+    private int maxCatchUpSteps = DEFAULT_MAX_CATCH_UP_STEPS;
     private AssetManager assetManager;
     private StateManager stateManager;
     private SpriteBatch spriteBatch;
     private PixmapPacker pixmapPacker;
     private ObjectMap<String, Array<String>> imagePacks;
-    private ObjectMap<String,Sound> sounds;
+    private AudioManager audioManager;
     private long previous;
     private long lag;
     private TextureAtlas atlas;
+    private AtlasCache atlasCache;
+    private Profiler profiler;
+    private int previousRenderCalls;
 
     @Override
     public void create() {
@@ -47,7 +55,12 @@ public class Core extends ApplicationAdapter {
 
             loadAssets();
 
-            previous = TimeUtils.millis();
+            String csvPath = System.getProperty(Profiler.CSV_PROPERTY);
+            if (csvPath != null) {
+                profiler.streamTo(Gdx.files.absolute(csvPath));
+            }
+
+            previous = TimeUtils.nanoTime();
             lag = 0;
 
             stateManager.loadState("loading");
@@ -87,7 +100,11 @@ public class Core extends ApplicationAdapter {
             imagePacks.put(DATA_PATH + "/" + name, new Array<String>());
         }
         
-        sounds = new ObjectMap<String, Sound>();
+        audioManager = new AudioManager();
+        
+        atlasCache = new AtlasCache();
+        
+        profiler = new Profiler();
         
         stateManager = new StateManager(this);
         stateManager.addState("loading", new LoadingState("menu", this));
@@ -103,17 +120,31 @@ public class Core extends ApplicationAdapter {
     @Override
     public void render() {
         try {
-            long current = TimeUtils.millis();
+            profiler.beginFrame();
+            long current = TimeUtils.nanoTime();
             long elapsed = current - previous;
             previous = current;
             lag += elapsed;
-
-            while (lag >= MS_PER_UPDATE) {
-                stateManager.act(MS_PER_UPDATE / 1000.0f);
-                lag -= MS_PER_UPDATE;
+            
+            float delta = nanosPerTick / 1000000000.0f;
+            int steps = 0;
+            while (lag >= nanosPerTick && steps < maxCatchUpSteps) {
+                stateManager.act(delta);
+                lag -= nanosPerTick;
+                steps++;
+            }
+            
+            //drop the time that could not be caught up instead of spiraling
+            if (lag >= nanosPerTick) {
+                lag %= nanosPerTick;
             }
 
-            stateManager.draw(spriteBatch, lag / MS_PER_UPDATE);
+            audioManager.update(elapsed / 1000000000.0f);
+            
+            stateManager.draw(spriteBatch, (float) lag / nanosPerTick);
+            
+            profiler.endFrame(spriteBatch.totalRenderCalls - previousRenderCalls);
+            previousRenderCalls = spriteBatch.totalRenderCalls;
         } catch (Exception e) {
             e.printStackTrace();
             
@@ -144,12 +175,14 @@ public class Core extends ApplicationAdapter {
 
     @Override
     public void dispose() {
+        if (atlas != null && !assetManager.containsAsset(atlas)) {
+            atlas.dispose();
+        }
         assetManager.dispose();
         stateManager.dispose();
         pixmapPacker.dispose();
-        if (atlas != null) {
-            atlas.dispose();
-        }
+        audioManager.dispose();
+        profiler.dispose();
     }
     
     public void loadAssets() {
@@ -160,21 +193,28 @@ public class Core extends ApplicationAdapter {
         for (String directory : imagePacks.keys()) {
             FileHandle folder = Gdx.files.local(directory);
             for (FileHandle file : folder.list()) {
-                assetManager.load(file.path(), Pixmap.class);
                 imagePacks.get(directory).add(file.nameWithoutExtension());
             }
+            //listing order differs between machines, and replays pick images by index
+            imagePacks.get(directory).sort();
         }
         
-        FileHandle folder = Gdx.files.local(DATA_PATH + "/sfx/");
-        for (FileHandle file : folder.list()) {
-            if (file.name().toLowerCase(Locale.ROOT).matches(".+\\.((mp3)|(wav))")) {
-                assetManager.load(file.path(), Sound.class);
+        //the packAtlas task packs the images at build time, but images changed since then are packed at runtime and that pack reused while they stay unchanged
+        atlasCache.update(imagePacks, DATA_PATH + "/gfx/white.png");
+        if (atlasCache.isPrebuilt()) {
+            assetManager.load(ATLAS_PATH, TextureAtlas.class);
+        } else if (atlasCache.isCached()) {
+            assetManager.load(AtlasCache.ATLAS_PATH, TextureAtlas.class);
+        } else {
+            for (String directory : imagePacks.keys()) {
+                for (String name : imagePacks.get(directory)) {
+                    assetManager.load(directory + "/" + name + ".png", Pixmap.class);
+                }
             }
+            assetManager.load(DATA_PATH + "/gfx/white.png", Pixmap.class);
         }
         
-        assetManager.load(DATA_PATH + "/gfx/white.png", Pixmap.class);
-        
-        assetManager.load(DATA_PATH + "/sfx/menu.wav", Sound.class);
+        //sounds are decoded on first use by the audio manager's sound bank
     }
 
     @Override
@@ -192,10 +232,41 @@ public class Core extends ApplicationAdapter {
         stateManager.resize(width, height);
     }
     
+    public float getTickRate() {
+        return tickRate;
+    }
+
+    /**
+     * Sets how many fixed updates run per second. Drawing interpolates
+     * between updates, so lower rates stay smooth at any refresh rate.
+     * @param tickRate 
+     */
+    public void setTickRate(float tickRate) {
+        this.tickRate = tickRate;
+        nanosPerTick = Math.round(1000000000.0 / tickRate);
+    }
+
+    public int getMaxCatchUpSteps() {
+        return maxCatchUpSteps;
+    }
+
+    /**
+     * Sets how many updates may run in a single frame to catch up after a
+     * slow one. Time beyond that is dropped.
+     * @param maxCatchUpSteps 
+     */
+    public void setMaxCatchUpSteps(int maxCatchUpSteps) {
+        this.maxCatchUpSteps = maxCatchUpSteps;
+    }
+    
     public AssetManager getAssetManager() {
         return assetManager;
     }
 
+    public Profiler getProfiler() {
+        return profiler;
+    }
+
     public StateManager getStateManager() {
         return stateManager;
     }
@@ -208,8 +279,12 @@ public class Core extends ApplicationAdapter {
         return imagePacks;
     }
 
-    public ObjectMap<String, Sound> getSounds() {
-        return sounds;
+    public AudioManager getAudioManager() {
+        return audioManager;
+    }
+
+    public AtlasCache getAtlasCache() {
+        return atlasCache;
     }
 
     public TextureAtlas getAtlas() {
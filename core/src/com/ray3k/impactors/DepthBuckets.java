@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.impactors;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
+
+/**
+ * Render order for an {@link EntityManager}: one bucket per depth, walked from
+ * the highest depth to the lowest. Entities keep their insertion order within
+ * a bucket. Removal leaves a hole that {@link #compact()} closes.
+ * @author Raymond
+ */
+public class DepthBuckets {
+    private final IntMap<Array<Entity>> buckets;
+    private final IntArray depths;
+    private boolean holes;
+
+    public DepthBuckets() {
+        buckets = new IntMap<Array<Entity>>();
+        depths = new IntArray();
+    }
+    
+    public void add(Entity entity) {
+        Array<Entity> bucket = getBucket(entity.getDepth());
+        entity.setRenderIndex(bucket.size);
+        bucket.add(entity);
+    }
+    
+    public void remove(Entity entity, int depth) {
+        buckets.get(depth).set(entity.getRenderIndex(), null);
+        entity.setRenderIndex(-1);
+        holes = true;
+    }
+    
+    public void move(Entity entity, int oldDepth) {
+        remove(entity, oldDepth);
+        add(entity);
+    }
+    
+    public void compact() {
+        if (holes) {
+            for (int i = 0; i < depths.size; i++) {
+                Array<Entity> bucket = buckets.get(depths.get(i));
+                int size = 0;
+                for (int j = 0; j < bucket.size; j++) {
+                    Entity entity = bucket.get(j);
+                    if (entity != null) {
+                        entity.setRenderIndex(size);
+                        bucket.set(size++, entity);
+                    }
+                }
+                bucket.truncate(size);
+            }
+            holes = false;
+        }
+    }
+    
+    /**
+     * @return the number of depths, in drawing order
+     */
+    public int getDepthCount() {
+        return depths.size;
+    }
+    
+    /**
+     * @param index
+     * @return the bucket at the given position in drawing order. It may
+     * contain nulls until the next {@link #compact()}.
+     */
+    public Array<Entity> getBucketAt(int index) {
+        return buckets.get(depths.get(index));
+    }
+    
+    private Array<Entity> getBucket(int depth) {
+        Array<Entity> bucket = buckets.get(depth);
+        if (bucket == null) {
+            bucket = new Array<Entity>();
+            buckets.put(depth, bucket);
+            
+            int index = 0;
+            while (index < depths.size && depths.get(index) > depth) {
+                index++;
+            }
+            depths.insert(index, depth);
+        }
+        return bucket;
+    }
+}
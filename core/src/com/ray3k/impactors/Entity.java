@@ -23,59 +23,69 @@
  */
 package com.ray3k.impactors;
 
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Pool;
 
-public abstract class Entity {
+/**
+ * Base class for everything managed by an {@link EntityManager}. Transform,
+ * velocity and collision box data live in the manager's
+ * {@link TransformStore}; the accessors here read and write the entity's slot.
+ * <p>
+ * Entities are set up in {@link #create()} when they are added to the manager
+ * rather than in their constructors, so pooled instances can be added again
+ * after {@link #reset()}.
+ * @author Raymond
+ */
+public abstract class Entity implements Pool.Poolable {
     private static final Vector2 temp = new Vector2();
-    private final Vector2 position;
-    private final Vector2 speed;
-    private final Vector2 offset;
-    private final Vector2 scale;
-    private float rotation;
+    private final TransformStore transforms;
+    private int slot;
+    private int renderIndex;
+    private int typeIndex;
     private TextureRegion textureRegion;
     private boolean destroyed;
     private final EntityManager manager;
     private final Core core;
-    private final Vector2 gravity;
     private int depth;
     private final Rectangle collisionBox;
-    private final Vector2 collisionBoxPosition;
     private boolean checkingCollisions;
+    private boolean fast;
+    private boolean wrapping;
+    private int typeId;
+    private int collisionCategory;
+    private int collisionMask;
 
     public Entity(EntityManager manager, Core core) {
-        position = new Vector2();
-        speed = new Vector2();
-        offset = new Vector2();
-        scale = new Vector2();
-        gravity = new Vector2();
-        
-        scale.x = 1.0f;
-        scale.y = 1.0f;
-        rotation = 0.0f;
         depth = 0;
         destroyed = false;
         this.manager = manager;
-        manager.addEntity(this);
+        transforms = manager.getTransforms();
+        slot = -1;
+        renderIndex = -1;
+        typeIndex = -1;
         this.core = core;
         collisionBox = new Rectangle();
-        collisionBoxPosition = new Vector2();
-        collisionBoxPosition.x = 0;
-        collisionBoxPosition.y = 0;
         checkingCollisions = false;
-        
-        create();
+        fast = false;
+        wrapping = false;
+        typeId = 0;
+        collisionCategory = 1;
+        collisionMask = ~0;
     }
     
+    /**
+     * Called by the {@link EntityManager} each time this entity is added.
+     * The entity's transform slot is available from here on.
+     */
     public abstract void create();
     
     public abstract void act(float delta);
     
     public abstract void act_end(float delta);
     
-    public abstract void draw(SpriteBatch spriteBatch, float delta);
+    public abstract void draw(RenderQueue queue, float alpha);
     
     public abstract void destroy();
     
@@ -84,24 +94,75 @@ public abstract class Entity {
     public void dispose() {
         if (!destroyed) {
             destroyed = true;
+            manager.entityDisposed();
             destroy();
         }
     }
 
+    /**
+     * Returns the entity to its constructed state before it goes back to its
+     * pool. Subclasses with their own state should extend this.
+     */
+    @Override
+    public void reset() {
+        textureRegion = null;
+        destroyed = false;
+        depth = 0;
+        checkingCollisions = false;
+        fast = false;
+        wrapping = false;
+        typeId = 0;
+        collisionCategory = 1;
+        collisionMask = ~0;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    int getRenderIndex() {
+        return renderIndex;
+    }
+
+    void setRenderIndex(int renderIndex) {
+        this.renderIndex = renderIndex;
+    }
+
+    int getTypeIndex() {
+        return typeIndex;
+    }
+
+    void setTypeIndex(int typeIndex) {
+        this.typeIndex = typeIndex;
+    }
+
     public Vector2 getPosition() {
-        return position.cpy();
+        return new Vector2(transforms.x[slot], transforms.y[slot]);
+    }
+    
+    /**
+     * Copies the position into out instead of allocating a vector.
+     * @param out
+     * @return out
+     */
+    public Vector2 getPosition(Vector2 out) {
+        return out.set(transforms.x[slot], transforms.y[slot]);
     }
     
     public float getX() {
-        return position.x;
+        return transforms.x[slot];
     }
     
     public float getY() {
-        return position.y;
+        return transforms.y[slot];
     }
     
     public void setPosition(Vector2 position) {
-        this.position.set(position);
+        setPosition(position.x, position.y);
     }
     
     public void setPosition(float x, float y) {
@@ -110,118 +171,138 @@ public abstract class Entity {
     }
     
     public void setX(float x) {
-        this.position.x = x;
+        transforms.x[slot] = x;
     }
     
     public void setY(float y) {
-        this.position.y = y;
+        transforms.y[slot] = y;
     }
     
     public void addX(float x) {
-        this.position.x += x;
+        transforms.x[slot] += x;
     }
     
     public void addY(float y) {
-        this.position.y += y;
+        transforms.y[slot] += y;
     }
 
     public float getSpeed() {
-        return speed.len();
+        return Vector2.len(transforms.speedX[slot], transforms.speedY[slot]);
+    }
+    
+    /**
+     * @param out receives the velocity
+     * @return out
+     */
+    public Vector2 getVelocity(Vector2 out) {
+        return out.set(transforms.speedX[slot], transforms.speedY[slot]);
     }
     
     public float getXspeed() {
-        return speed.x;
+        return transforms.speedX[slot];
     }
     
     public float getYspeed() {
-        return speed.y;
+        return transforms.speedY[slot];
     }
     
     public void setSpeed(Vector2 speed) {
-        this.speed.set(speed);
+        setXspeed(speed.x);
+        setYspeed(speed.y);
     }
     
     public void setXspeed(float x) {
-        this.speed.x = x;
+        transforms.speedX[slot] = x;
     }
     
     public void setYspeed(float y) {
-        this.speed.y = y;
+        transforms.speedY[slot] = y;
     }
     
     public void addXspeed(float x) {
-        this.speed.x += x;
+        transforms.speedX[slot] += x;
     }
     
     public void addYspeed(float y) {
-        this.speed.y += y;
+        transforms.speedY[slot] += y;
     }
     
     public void setMotion(float speed, float direction) {
-        this.speed.set(speed, 0);
-        this.speed.rotate(direction);
+        temp.set(speed, 0);
+        temp.rotate(direction);
+        setXspeed(temp.x);
+        setYspeed(temp.y);
     }
     
     public void addMotion(float speed, float direction) {
         temp.set(speed, 0);
         temp.rotate(direction);
-        this.speed.add(temp);
+        addXspeed(temp.x);
+        addYspeed(temp.y);
     }
     
     public float getDirection() {
-        return this.speed.angle();
+        return temp.set(transforms.speedX[slot], transforms.speedY[slot]).angle();
     }
 
     public float getRotation() {
-        return rotation;
+        return transforms.rotation[slot];
     }
 
     public Vector2 getOffset() {
-        return offset.cpy();
+        return new Vector2(transforms.offsetX[slot], transforms.offsetY[slot]);
+    }
+    
+    public Vector2 getOffset(Vector2 out) {
+        return out.set(transforms.offsetX[slot], transforms.offsetY[slot]);
     }
     
     public float getOffsetX() {
-        return offset.x;
+        return transforms.offsetX[slot];
     }
     
     public void setOffsetX(float x) {
-        offset.x = x;
+        transforms.offsetX[slot] = x;
     }
     
     public float getOffsetY() {
-        return offset.y;
+        return transforms.offsetY[slot];
     }
     
     public void setOffsetY(float y) {
-        offset.y = y;
+        transforms.offsetY[slot] = y;
     }
 
     public Vector2 getScale() {
-        return scale.cpy();
+        return new Vector2(transforms.scaleX[slot], transforms.scaleY[slot]);
+    }
+    
+    public Vector2 getScale(Vector2 out) {
+        return out.set(transforms.scaleX[slot], transforms.scaleY[slot]);
     }
     
     public float getScaleX() {
-        return scale.x;
+        return transforms.scaleX[slot];
     }
     
     public void setScaleX(float scaleX) {
-        scale.x = scaleX;
+        transforms.scaleX[slot] = scaleX;
     }
     
     public float getScaleY() {
-        return scale.y;
+        return transforms.scaleY[slot];
     }
     
     public void setScaleY(float scaleY) {
-        scale.y = scaleY;
+        transforms.scaleY[slot] = scaleY;
     }
 
     public void setRotation(float rotation) {
-        this.rotation = rotation;
+        transforms.rotation[slot] = rotation;
     }
     
     public void addRotation(float rotation) {
-        this.rotation += rotation;
+        transforms.rotation[slot] += rotation;
     }
 
     public boolean isDestroyed() {
@@ -245,28 +326,34 @@ public abstract class Entity {
     }
     
     public void setGravityX(float gravityX) {
-        gravity.x = gravityX;
+        transforms.gravityX[slot] = gravityX;
     }
     
     public void setGravityY(float gravityY) {
-        gravity.y = gravityY;
+        transforms.gravityY[slot] = gravityY;
     }
     
     public void setGravity(float speed, float direction) {
-        gravity.set(speed, 0);
-        gravity.rotate(direction);
+        temp.set(speed, 0);
+        temp.rotate(direction);
+        setGravityX(temp.x);
+        setGravityY(temp.y);
     }
     
     public float getGravityX() {
-        return gravity.x;
+        return transforms.gravityX[slot];
     }
     
     public float getGravityY() {
-        return gravity.y;
+        return transforms.gravityY[slot];
     }
     
     public Vector2 getGravity() {
-        return gravity.cpy();
+        return new Vector2(transforms.gravityX[slot], transforms.gravityY[slot]);
+    }
+    
+    public Vector2 getGravity(Vector2 out) {
+        return out.set(transforms.gravityX[slot], transforms.gravityY[slot]);
     }
 
     public int getDepth() {
@@ -274,11 +361,76 @@ public abstract class Entity {
     }
 
     public void setDepth(int depth) {
+        int oldDepth = this.depth;
         this.depth = depth;
+        if (renderIndex != -1 && oldDepth != depth) {
+            manager.depthChanged(this, oldDepth);
+        }
     }
 
+    /**
+     * Returns the collision box as of the last integration step. The
+     * rectangle is reused and changes to it are not written back; use
+     * {@link #setCollisionBoxSize(float, float)} to resize the box.
+     * @return 
+     */
     public Rectangle getCollisionBox() {
-        return collisionBox;
+        return collisionBox.set(transforms.boxX[slot], transforms.boxY[slot], transforms.boxWidth[slot], transforms.boxHeight[slot]);
+    }
+    
+    public void setCollisionBoxSize(float width, float height) {
+        transforms.boxWidth[slot] = width;
+        transforms.boxHeight[slot] = height;
+    }
+    
+    public float getCollisionBoxWidth() {
+        return transforms.boxWidth[slot];
+    }
+    
+    public float getCollisionBoxHeight() {
+        return transforms.boxHeight[slot];
+    }
+    
+    /**
+     * Moves the collision box to the entity's current position without
+     * waiting for the next integration step.
+     */
+    public void updateCollisionBox() {
+        transforms.boxX[slot] = transforms.x[slot] + transforms.boxOffsetX[slot];
+        transforms.boxY[slot] = transforms.y[slot] + transforms.boxOffsetY[slot];
+    }
+
+    public boolean isWrapping() {
+        return wrapping;
+    }
+
+    /**
+     * @param wrapping true if the entity wraps around the world edges, so
+     * the manager draws a ghost on the far side while it straddles one
+     */
+    public void setWrapping(boolean wrapping) {
+        this.wrapping = wrapping;
+    }
+    
+    /**
+     * Moves the entity by a whole world width or height once its position
+     * leaves the world, so it carries on from where its ghost was drawn.
+     */
+    protected void wrap() {
+        float worldWidth = manager.getWorldWidth();
+        float worldHeight = manager.getWorldHeight();
+        
+        if (getX() < 0.0f) {
+            setX(getX() + worldWidth);
+        } else if (getX() >= worldWidth) {
+            setX(getX() - worldWidth);
+        }
+        
+        if (getY() < 0.0f) {
+            setY(getY() + worldHeight);
+        } else if (getY() >= worldHeight) {
+            setY(getY() - worldHeight);
+        }
     }
 
     public boolean isCheckingCollisions() {
@@ -289,19 +441,72 @@ public abstract class Entity {
         this.checkingCollisions = checkingCollisions;
     }
 
+    public int getTypeId() {
+        return typeId;
+    }
+
+    /**
+     * Sets the id this entity is looked up by in the
+     * {@link CollisionDispatcher}. Must be less than
+     * {@link CollisionDispatcher#MAX_TYPES}.
+     * @param typeId 
+     */
+    public void setTypeId(int typeId) {
+        this.typeId = typeId;
+    }
+    
+    public int getCollisionCategory() {
+        return collisionCategory;
+    }
+
+    /**
+     * Sets the category bits this entity is seen as by other entities' masks.
+     * @param collisionCategory 
+     */
+    public void setCollisionCategory(int collisionCategory) {
+        this.collisionCategory = collisionCategory;
+    }
+
+    public int getCollisionMask() {
+        return collisionMask;
+    }
+
+    /**
+     * Sets the categories this entity wants {@link #collision(Entity)} calls
+     * for. Pairs where neither entity's mask matches the other's category are
+     * never tested.
+     * @param collisionMask 
+     */
+    public void setCollisionMask(int collisionMask) {
+        this.collisionMask = collisionMask;
+    }
+    
+    public boolean isFast() {
+        return fast;
+    }
+
+    /**
+     * Fast entities are collision tested along their movement for the whole
+     * tick instead of only at their end position.
+     * @param fast 
+     */
+    public void setFast(boolean fast) {
+        this.fast = fast;
+    }
+
     public void setCollisionBoxX(float collisionBoxX) {
-        collisionBoxPosition.x = collisionBoxX;
+        transforms.boxOffsetX[slot] = collisionBoxX;
     }
     
     public void setCollisionBoxY(float collisionBoxY) {
-        collisionBoxPosition.y = collisionBoxY;
+        transforms.boxOffsetY[slot] = collisionBoxY;
     }
     
     public float getCollisionBoxX() {
-        return collisionBoxPosition.x;
+        return transforms.boxOffsetX[slot];
     }
     
     public float getCollisionBoxY() {
-        return collisionBoxPosition.y;
+        return transforms.boxOffsetY[slot];
     }
 }
@@ -25,80 +25,654 @@
 package com.ray3k.impactors;
 
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
-import java.util.Comparator;
-import java.util.Iterator;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongArray;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.Pool;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.ray3k.impactors.profiling.Profiler;
 
 public class EntityManager {
+    public static final float DEFAULT_CELL_SIZE = 64.0f;
+    private static final Profiler DISABLED_PROFILER = new Profiler();
     private final Array<Entity> entities;
+    private final TransformStore transforms;
+    private final DepthBuckets depthBuckets;
+    private final RenderQueue renderQueue;
+    private final SpatialHash spatialHash;
+    private final SpatialHash queryIndex;
+    private boolean queryIndexDirty;
+    private final IntArray pairs;
+    private final Narrowphase narrowphase;
+    private final LongArray contacts;
+    private final CollisionDispatcher collisionDispatcher;
+    private final ObjectMap<Class<? extends Entity>, Pool<? extends Entity>> pools;
+    private final ObjectMap<Class<? extends Entity>, Array<Entity>> entitiesByType;
+    private final ObjectMap<Class<? extends Entity>, EntityView<? extends Entity>> views;
+    private final Array<Entity> prewarmed;
+    private final Array<Entity> queryResults;
+    private final Array<Entity> pendingAdds;
+    private int pendingRemovals;
+    private boolean ticking;
+    private float worldWidth;
+    private float worldHeight;
+    private Profiler profiler;
     
     public EntityManager() {
         entities = new Array<Entity>();
+        transforms = new TransformStore();
+        depthBuckets = new DepthBuckets();
+        renderQueue = new RenderQueue();
+        spatialHash = new SpatialHash(DEFAULT_CELL_SIZE);
+        queryIndex = new SpatialHash(DEFAULT_CELL_SIZE);
+        queryIndexDirty = true;
+        pairs = new IntArray();
+        narrowphase = new Narrowphase();
+        contacts = new LongArray();
+        collisionDispatcher = new CollisionDispatcher();
+        pools = new ObjectMap<Class<? extends Entity>, Pool<? extends Entity>>();
+        entitiesByType = new ObjectMap<Class<? extends Entity>, Array<Entity>>();
+        views = new ObjectMap<Class<? extends Entity>, EntityView<? extends Entity>>();
+        prewarmed = new Array<Entity>();
+        queryResults = new Array<Entity>();
+        pendingAdds = new Array<Entity>();
+        profiler = DISABLED_PROFILER;
     }
     
-    public void addEntity(Entity entity) {
+    /**
+     * @param type
+     * @return the number of entities of exactly the given class in the
+     * manager
+     */
+    public int count(Class<? extends Entity> type) {
+        Array<Entity> typeList = entitiesByType.get(type);
+        return typeList == null ? 0 : typeList.size;
+    }
+    
+    /**
+     * @param <T>
+     * @param type
+     * @return an entity of exactly the given class or null
+     */
+    public <T extends Entity> T first(Class<T> type) {
+        Array<Entity> typeList = entitiesByType.get(type);
+        return typeList == null || typeList.size == 0 ? null : type.cast(typeList.first());
+    }
+    
+    /**
+     * @param <T>
+     * @param type
+     * @return a live, reusable view of the entities of exactly the given
+     * class
+     */
+    public <T extends Entity> EntityView<T> view(Class<T> type) {
+        @SuppressWarnings("unchecked")
+        EntityView<T> view = (EntityView<T>) views.get(type);
+        if (view == null) {
+            view = new EntityView<T>(getTypeList(type));
+            views.put(type, view);
+        }
+        return view;
+    }
+    
+    /**
+     * Finds entities whose position is closer than radius to the given point.
+     * Like the other queries this works on positions as of the first query
+     * since the last tick or add.
+     * @param <T>
+     * @param x
+     * @param y
+     * @param radius
+     * @param type the exact class to look for or null for any
+     * @param out cleared and filled with the results in update order
+     */
+    public <T extends Entity> void queryRadius(float x, float y, float radius, Class<T> type, Array<? super T> out) {
+        updateQueryIndex();
+        queryIndex.queryRadius(x, y, radius, type, out);
+    }
+    
+    /**
+     * Finds the count entities of the given class nearest to a point.
+     * @param <T>
+     * @param x
+     * @param y
+     * @param count
+     * @param maxDistance only entities closer than this are returned
+     * @param type the exact class to look for or null for any
+     * @param out cleared and filled with the results, nearest first
+     */
+    public <T extends Entity> void queryNearest(float x, float y, int count, float maxDistance, Class<T> type, Array<? super T> out) {
+        updateQueryIndex();
+        queryIndex.queryNearest(x, y, count, maxDistance, type, out);
+    }
+    
+    /**
+     * @param <T>
+     * @param x
+     * @param y
+     * @param maxDistance
+     * @param type
+     * @return the entity of the given class nearest to a point and closer
+     * than maxDistance or null
+     */
+    public <T extends Entity> T queryNearest(float x, float y, float maxDistance, Class<T> type) {
+        queryNearest(x, y, 1, maxDistance, type, queryResults);
+        T result = queryResults.size > 0 ? type.cast(queryResults.first()) : null;
+        queryResults.clear();
+        return result;
+    }
+    
+    /**
+     * Finds the first collision box along a segment.
+     * @param startX
+     * @param startY
+     * @param endX
+     * @param endY
+     * @param categoryMask only entities whose collision category matches are
+     * hit
+     * @param hitPoint set to the point of entry if not null
+     * @return the first entity hit or null
+     */
+    public Entity raycast(float startX, float startY, float endX, float endY, int categoryMask, Vector2 hitPoint) {
+        updateQueryIndex();
+        return queryIndex.raycast(startX, startY, endX, endY, categoryMask, hitPoint);
+    }
+    
+    private void updateQueryIndex() {
+        if (queryIndexDirty) {
+            queryIndex.clear(worldWidth, worldHeight);
+            for (int i = 0; i < entities.size; i++) {
+                Entity entity = entities.get(i);
+                if (!entity.isDestroyed()) {
+                    int slot = entity.getSlot();
+                    float x = transforms.x[slot];
+                    float y = transforms.y[slot];
+                    float minX = Math.min(x, transforms.boxX[slot]);
+                    float minY = Math.min(y, transforms.boxY[slot]);
+                    float maxX = Math.max(x, transforms.boxX[slot] + transforms.boxWidth[slot]);
+                    float maxY = Math.max(y, transforms.boxY[slot] + transforms.boxHeight[slot]);
+                    queryIndex.insert(entity, minX, minY, maxX - minX, maxY - minY);
+                }
+            }
+            queryIndexDirty = false;
+        }
+    }
+    
+    private Array<Entity> getTypeList(Class<? extends Entity> type) {
+        Array<Entity> typeList = entitiesByType.get(type);
+        if (typeList == null) {
+            typeList = new Array<Entity>();
+            entitiesByType.put(type, typeList);
+        }
+        return typeList;
+    }
+    
+    private void removeFromTypeList(Entity entity) {
+        Array<Entity> typeList = entitiesByType.get(entity.getClass());
+        int index = entity.getTypeIndex();
+        Entity last = typeList.pop();
+        if (last != entity) {
+            typeList.set(index, last);
+            last.setTypeIndex(index);
+        }
+        entity.setTypeIndex(-1);
+    }
+    
+    /**
+     * Adds an entity and calls its {@link Entity#create()}. Entities added
+     * while {@link #act(float)} is running get their transform slot straight
+     * away but only join the simulation, render and type lists once the tick
+     * has finished, in the order they were added.
+     * @param <T>
+     * @param entity
+     * @return the entity
+     */
+    public <T extends Entity> T addEntity(T entity) {
+        entity.setSlot(transforms.allocate(entity));
+        if (ticking) {
+            pendingAdds.add(entity);
+        } else {
+            insert(entity);
+        }
+        entity.create();
+        return entity;
+    }
+    
+    private void insert(Entity entity) {
+        queryIndexDirty = true;
         entities.add(entity);
+        depthBuckets.add(entity);
+        Array<Entity> typeList = getTypeList(entity.getClass());
+        entity.setTypeIndex(typeList.size);
+        typeList.add(entity);
+    }
+    
+    void entityDisposed() {
+        pendingRemovals++;
     }
     
+    /**
+     * Registers the pool that entities of the given class are obtained from
+     * and returned to once they have been disposed and removed.
+     * @param <T>
+     * @param type
+     * @param pool 
+     */
+    public <T extends Entity> void registerPool(Class<T> type, Pool<T> pool) {
+        pools.put(type, pool);
+    }
+    
+    public <T extends Entity> T obtain(Class<T> type) {
+        Pool<Entity> pool = getPool(type);
+        if (pool == null) {
+            throw new IllegalArgumentException("No pool registered for " + type.getName());
+        }
+        return type.cast(pool.obtain());
+    }
+    
+    /**
+     * Obtains an entity from its pool and adds it.
+     * @param <T>
+     * @param type
+     * @return 
+     */
+    public <T extends Entity> T spawn(Class<T> type) {
+        return addEntity(obtain(type));
+    }
+    
+    /**
+     * Fills the pool for the given class until it holds at least count free
+     * entities.
+     * @param type
+     * @param count 
+     */
+    public void prewarm(Class<? extends Entity> type, int count) {
+        Pool<Entity> pool = getPool(type);
+        if (pool == null) {
+            throw new IllegalArgumentException("No pool registered for " + type.getName());
+        }
+        
+        if (pool.getFree() < count) {
+            for (int i = 0; i < count; i++) {
+                prewarmed.add(pool.obtain());
+            }
+            pool.freeAll(prewarmed);
+            prewarmed.clear();
+        }
+        
+        Array<Entity> typeList = getTypeList(type);
+        typeList.ensureCapacity(count - typeList.size);
+        entities.ensureCapacity(count);
+    }
+    
+    /**
+     * Pools are registered per exact class, so the pool found for a class
+     * only ever sees entities of that class.
+     * @param type
+     * @return the pool registered for type or null
+     */
+    @SuppressWarnings("unchecked")
+    private Pool<Entity> getPool(Class<? extends Entity> type) {
+        return (Pool<Entity>) pools.get(type);
+    }
+    
+    private void recycle(Entity entity) {
+        Pool<Entity> pool = getPool(entity.getClass());
+        if (pool != null) {
+            pool.free(entity);
+        }
+    }
+    
+    /**
+     * @return a copy of the entity list. Prefer
+     * {@link #getEntities(Array)} or {@link #view(Class)} on paths that run
+     * every tick.
+     */
     public Array<Entity> getEntities() {
         return new Array<Entity>(entities);
     }
     
+    /**
+     * Adds every live entity to out without allocating.
+     * @param out
+     * @return out
+     */
+    public Array<Entity> getEntities(Array<Entity> out) {
+        for (int i = 0; i < entities.size; i++) {
+            Entity entity = entities.get(i);
+            if (!entity.isDestroyed()) {
+                out.add(entity);
+            }
+        }
+        return out;
+    }
+    
+    /**
+     * Adds the number of live entities of each class to the given counts,
+     * keyed by simple class name.
+     * @param counts 
+     */
+    public void census(ObjectIntMap<String> counts) {
+        for (int i = 0; i < entities.size; i++) {
+            Entity entity = entities.get(i);
+            if (!entity.isDestroyed()) {
+                counts.getAndIncrement(entity.getClass().getSimpleName(), 0, 1);
+            }
+        }
+    }
+    
+    /**
+     * Hashes the type and position of every live entity in update order. Two
+     * runs that agree on this have, for practical purposes, the same world.
+     * @return 
+     */
+    public int checksum() {
+        int hash = 1;
+        for (int i = 0; i < entities.size; i++) {
+            Entity entity = entities.get(i);
+            if (!entity.isDestroyed()) {
+                hash = 31 * hash + entity.getClass().getSimpleName().hashCode();
+                hash = 31 * hash + Float.floatToIntBits(entity.getX());
+                hash = 31 * hash + Float.floatToIntBits(entity.getY());
+            }
+        }
+        return hash;
+    }
+    
     public void act(float delta) {
-        Iterator<Entity> iter = entities.iterator();
-        while (iter.hasNext()) {
-            Entity entity = iter.next();
+        ticking = true;
+        profiler.begin(Profiler.INTEGRATE);
+        transforms.integrate(delta);
+        queryIndexDirty = true;
+        profiler.end(Profiler.INTEGRATE);
+        
+        profiler.begin(Profiler.ACT);
+        if (profiler.isEnabled()) {
+            actProfiled(delta);
+        } else {
+            for (int i = 0; i < entities.size; i++) {
+                Entity entity = entities.get(i);
+                if (!entity.isDestroyed()) {
+                    entity.act(delta);
+                }
+            }
+        }
+        profiler.end(Profiler.ACT);
+        
+        profiler.begin(Profiler.COLLIDE);
+        checkCollisions(delta);
+        profiler.end(Profiler.COLLIDE);
+        
+        profiler.begin(Profiler.ACT_END);
+        for (int i = 0; i < entities.size; i++) {
+            Entity entity = entities.get(i);
             if (!entity.isDestroyed()) {
-                entity.addXspeed(entity.getGravityX() * delta);
-                entity.addYspeed(entity.getGravityY() * delta);
-                
-                entity.addX(entity.getXspeed() * delta);
-                entity.addY(entity.getYspeed() * delta);
-                
-                entity.getCollisionBox().setPosition(entity.getX() + entity.getCollisionBoxX(), entity.getY() + entity.getCollisionBoxY());
-                entity.act(delta);
-                
-                for (int i = 0; i < entities.size ; i++) {
-                    if (!entity.isDestroyed() && entity.isCheckingCollisions()) {
-                        Entity other = entities.get(i);
-                        if (other.isCheckingCollisions()) {
-                            if (entity.getCollisionBox().overlaps(other.getCollisionBox())) {
-                                entity.collision(other);
-                            }
-                        }
-                    } else {
-                        break;
+                entity.act_end(delta);
+            }
+        }
+        ticking = false;
+        profiler.end(Profiler.ACT_END);
+        
+        profiler.begin(Profiler.COMPACT);
+        compact();
+        
+        for (int i = 0; i < pendingAdds.size; i++) {
+            Entity entity = pendingAdds.get(i);
+            if (entity.isDestroyed()) {
+                release(entity);
+            } else {
+                insert(entity);
+            }
+        }
+        pendingAdds.clear();
+        queryIndexDirty = true;
+        profiler.end(Profiler.COMPACT);
+    }
+    
+    /**
+     * Acts like the plain loop, but reads the clock whenever the class of
+     * the entity changes and charges the time to the previous class.
+     * @param delta 
+     */
+    private void actProfiled(float delta) {
+        Class<? extends Entity> runType = null;
+        long runStart = 0;
+        for (int i = 0; i < entities.size; i++) {
+            Entity entity = entities.get(i);
+            if (!entity.isDestroyed()) {
+                if (entity.getClass() != runType) {
+                    long now = TimeUtils.nanoTime();
+                    if (runType != null) {
+                        profiler.addClassTime(runType, now - runStart);
                     }
+                    runType = entity.getClass();
+                    runStart = now;
                 }
-            } else {
-                iter.remove();
+                entity.act(delta);
             }
         }
+        if (runType != null) {
+            profiler.addClassTime(runType, TimeUtils.nanoTime() - runStart);
+        }
+        profiler.endClassTimes();
+    }
+    
+    /**
+     * Drops every destroyed entity in a single pass, keeping the order of
+     * the survivors.
+     */
+    private void compact() {
+        if (pendingRemovals > 0) {
+            int size = 0;
+            for (int i = 0; i < entities.size; i++) {
+                Entity entity = entities.get(i);
+                if (entity.isDestroyed()) {
+                    depthBuckets.remove(entity, entity.getDepth());
+                    removeFromTypeList(entity);
+                    release(entity);
+                } else {
+                    entities.set(size++, entity);
+                }
+            }
+            entities.truncate(size);
+            depthBuckets.compact();
+            pendingRemovals = 0;
+        }
+    }
+    
+    private void release(Entity entity) {
+        transforms.free(entity.getSlot());
+        entity.setSlot(-1);
+        recycle(entity);
+    }
+    
+    void depthChanged(Entity entity, int oldDepth) {
+        depthBuckets.move(entity, oldDepth);
+    }
+    
+    /**
+     * Every box goes into the broadphase stretched back over the tick's
+     * movement, so a fast entity, which the narrowphase tests along the
+     * relative movement of the pair, is paired with anything it could have
+     * met on the way. The world wraps, so boxes at opposite edges are paired
+     * as well and tested at their nearest copies.
+     * @param delta 
+     */
+    private void checkCollisions(float delta) {
+        spatialHash.clear(worldWidth, worldHeight);
+        for (int i = 0; i < entities.size; i++) {
+            Entity entity = entities.get(i);
+            if (!entity.isDestroyed() && entity.isCheckingCollisions() && (entity.getCollisionCategory() != 0 || entity.getCollisionMask() != 0)) {
+                int slot = entity.getSlot();
+                float x = transforms.boxX[slot];
+                float y = transforms.boxY[slot];
+                float dx = transforms.speedX[slot] * delta;
+                float dy = transforms.speedY[slot] * delta;
+                spatialHash.insert(entity, Math.min(x, x - dx), Math.min(y, y - dy), transforms.boxWidth[slot] + Math.abs(dx), transforms.boxHeight[slot] + Math.abs(dy));
+            }
+        }
+        
+        pairs.clear();
+        spatialHash.findPairs(pairs);
+        contacts.clear();
+        narrowphase.run(spatialHash, pairs, transforms, delta, contacts);
         
-        iter = entities.iterator();
-        while (iter.hasNext()) {
-            Entity entity = iter.next();
+        for (int i = 0; i < contacts.size; i++) {
+            long contact = contacts.get(i);
+            Entity entity = spatialHash.getEntry((int) (contact >>> 32));
+            Entity other = spatialHash.getEntry((int) contact);
             
-            entity.act_end(delta);
+            if (!entity.isDestroyed() && !other.isDestroyed()) {
+                collisionDispatcher.dispatch(entity, other);
+            }
         }
     }
     
-    public void draw(SpriteBatch spriteBatch, float delta) {
-        entities.sort(new Comparator<Entity>() {
-            @Override
-            public int compare(Entity o1, Entity o2) {
-                return o2.getDepth() - o1.getDepth();
-            }
-        });
+    /**
+     * Records the entities into the manager's {@link RenderQueue} and draws
+     * it.
+     * @param spriteBatch
+     * @param alpha fraction of a tick elapsed since the last one
+     */
+    public void draw(SpriteBatch spriteBatch, float alpha) {
+        profiler.begin(Profiler.SPRITES);
+        renderQueue.clear();
+        record(renderQueue, alpha);
+        renderQueue.flush(spriteBatch);
+        profiler.end(Profiler.SPRITES);
+    }
+    
+    /**
+     * Adds every entity to the queue between its previous and current
+     * transform, followed by whatever the entity adds itself. Wrapping
+     * entities are interpolated across the edge they wrapped over and get
+     * ghosts while they straddle one. Other entities that have not been
+     * integrated yet, or that jumped more than half the world in a tick, are
+     * placed where they are. Anything outside the queue's view is culled.
+     * @param queue
+     * @param alpha fraction of a tick elapsed since the last one
+     */
+    public void record(RenderQueue queue, float alpha) {
+        float maxJumpX = worldWidth / 2.0f;
+        float maxJumpY = worldHeight / 2.0f;
+        queue.setWrapSize(worldWidth, worldHeight);
         
-        for (Entity entity : entities) {
-            if (!entity.isDestroyed()) {
-                if (entity.getTextureRegion() != null) {
-                    spriteBatch.draw(entity.getTextureRegion(), entity.getX() + entity.getXspeed() * delta, entity.getY() + entity.getYspeed() * delta, entity.getOffsetX(), entity.getOffsetY(), entity.getTextureRegion().getRegionWidth(), entity.getTextureRegion().getRegionHeight(), entity.getScaleX(), entity.getScaleY(), entity.getRotation());
+        for (int i = 0; i < depthBuckets.getDepthCount(); i++) {
+            Array<Entity> bucket = depthBuckets.getBucketAt(i);
+            for (int j = 0; j < bucket.size; j++) {
+                Entity entity = bucket.get(j);
+                if (entity != null && !entity.isDestroyed()) {
+                    queue.setDepth(entity.getDepth());
+                    queue.setWrapping(entity.isWrapping());
+                    TextureRegion region = entity.getTextureRegion();
+                    if (region != null) {
+                        int slot = entity.getSlot();
+                        float x = transforms.x[slot];
+                        float y = transforms.y[slot];
+                        float rotation = transforms.rotation[slot];
+                        
+                        if (transforms.hasPrevious[slot]) {
+                            float previousX = transforms.previousX[slot];
+                            float previousY = transforms.previousY[slot];
+                            if (entity.isWrapping()) {
+                                if (x - previousX > maxJumpX) {
+                                    previousX += worldWidth;
+                                } else if (previousX - x > maxJumpX) {
+                                    previousX -= worldWidth;
+                                }
+                                
+                                if (y - previousY > maxJumpY) {
+                                    previousY += worldHeight;
+                                } else if (previousY - y > maxJumpY) {
+                                    previousY -= worldHeight;
+                                }
+                            }
+                            
+                            if (Math.abs(x - previousX) < maxJumpX && Math.abs(y - previousY) < maxJumpY) {
+                                x = previousX + (x - previousX) * alpha;
+                                y = previousY + (y - previousY) * alpha;
+                                rotation = transforms.previousRotation[slot] + (rotation - transforms.previousRotation[slot]) * alpha;
+                            }
+                        }
+                        
+                        queue.add(region, x, y, transforms.offsetX[slot], transforms.offsetY[slot], region.getRegionWidth(), region.getRegionHeight(), transforms.scaleX[slot], transforms.scaleY[slot], rotation);
+                    }
+
+                    queue.setWrapping(false);
+                    entity.draw(queue, alpha);
                 }
-                
-                entity.draw(spriteBatch, delta);
             }
         }
     }
+
+    /**
+     * @return the queue filled by the last {@link #draw(SpriteBatch, float)}
+     */
+    public RenderQueue getRenderQueue() {
+        return renderQueue;
+    }
+
+    public Profiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * @param profiler receives the timings of each phase of act and draw
+     */
+    public void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    public boolean isParallelCollisions() {
+        return narrowphase.isParallel();
+    }
+
+    /**
+     * Switches contact testing between the fork-join pool and the calling
+     * thread. Both produce the same contacts in the same order.
+     * @param parallelCollisions 
+     */
+    public void setParallelCollisions(boolean parallelCollisions) {
+        narrowphase.setParallel(parallelCollisions);
+    }
+    
+    public Narrowphase getNarrowphase() {
+        return narrowphase;
+    }
+    
+    public TransformStore getTransforms() {
+        return transforms;
+    }
+    
+    public CollisionDispatcher getCollisionDispatcher() {
+        return collisionDispatcher;
+    }
+    
+    public float getCellSize() {
+        return spatialHash.getCellSize();
+    }
+
+    public void setCellSize(float cellSize) {
+        spatialHash.setCellSize(cellSize);
+        queryIndex.setCellSize(cellSize);
+        queryIndexDirty = true;
+    }
+    
+    public void setWorldSize(float worldWidth, float worldHeight) {
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        queryIndexDirty = true;
+    }
+
+    public float getWorldWidth() {
+        return worldWidth;
+    }
+
+    public float getWorldHeight() {
+        return worldHeight;
+    }
 }
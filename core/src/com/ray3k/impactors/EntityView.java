@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.impactors;
+
+import com.badlogic.gdx.utils.Array;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only view over the live entities of one class in an
+ * {@link EntityManager}. Views are cached per class and reflect changes to
+ * the manager immediately. As with libGDX's Array, the iterator is reused, so
+ * nested iteration over the same view should use {@link #get(int)}.
+ * @author Raymond
+ * @param <T> 
+ */
+public class EntityView<T extends Entity> implements Iterable<T> {
+    private final Array<Entity> entities;
+    private final ViewIterator iterator;
+
+    EntityView(Array<Entity> entities) {
+        this.entities = entities;
+        iterator = new ViewIterator();
+    }
+    
+    public int size() {
+        return entities.size;
+    }
+    
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        return (T) entities.get(index);
+    }
+    
+    @Override
+    public Iterator<T> iterator() {
+        iterator.index = 0;
+        return iterator;
+    }
+    
+    private class ViewIterator implements Iterator<T> {
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+            return index < entities.size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (index >= entities.size) {
+                throw new NoSuchElementException(String.valueOf(index));
+            }
+            return (T) entities.get(index++);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("EntityView is read-only.");
+        }
+    }
+}
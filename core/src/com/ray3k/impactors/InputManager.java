@@ -23,11 +23,25 @@
  */
 package com.ray3k.impactors;
 
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.InputProcessor;
 import com.badlogic.gdx.utils.Array;
 
+/**
+ * Gameplay reads input once per tick as a frame: the low four bits hold
+ * which of {@link #KEYS} are down, the high four bits which were pressed
+ * since the last tick. Frames are captured from the keyboard, or taken from
+ * a {@link Replay}, and then applied, so the game sees the same thing
+ * either way.
+ * @author Raymond
+ */
 public class InputManager implements InputProcessor {
+    public static final int[] KEYS = {Keys.UP, Keys.LEFT, Keys.RIGHT, Keys.SPACE};
+    private static final int PRESSED_SHIFT = 4;
     private final Array<KeyActionListener> flapListeners;
+    private int pressed;
+    private int held;
 
     public InputManager() {
         flapListeners = new Array<KeyActionListener>();
@@ -48,11 +62,63 @@ public class InputManager implements InputProcessor {
     public void dispose() {
         flapListeners.clear();
     }
+    
+    /**
+     * Builds the frame for the coming tick from the keys held right now and
+     * the presses seen since the last call.
+     * @return 
+     */
+    public int capture() {
+        int frame = pressed << PRESSED_SHIFT;
+        pressed = 0;
+        for (int i = 0; i < KEYS.length; i++) {
+            if (Gdx.input.isKeyPressed(KEYS[i])) {
+                frame |= 1 << i;
+            }
+        }
+        return frame;
+    }
+    
+    /**
+     * Makes the frame the current key state and tells the listeners about
+     * its presses.
+     * @param frame 
+     */
+    public void apply(int frame) {
+        held = frame & ((1 << PRESSED_SHIFT) - 1);
+        for (int i = 0; i < KEYS.length; i++) {
+            if ((frame & 1 << (i + PRESSED_SHIFT)) != 0) {
+                for (int j = 0; j < flapListeners.size; j++) {
+                    flapListeners.get(j).keyPressed(KEYS[i]);
+                }
+            }
+        }
+    }
+    
+    /**
+     * @param key
+     * @return whether the key is down in the current frame. Keys outside
+     * {@link #KEYS} are never down.
+     */
+    public boolean isKeyPressed(int key) {
+        int index = indexOf(key);
+        return index != -1 && (held & 1 << index) != 0;
+    }
+    
+    private static int indexOf(int key) {
+        for (int i = 0; i < KEYS.length; i++) {
+            if (KEYS[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
 
     @Override
     public boolean keyDown(int keycode) {
-        for (KeyActionListener flapListener : flapListeners) {
-            flapListener.keyPressed(keycode);
+        int index = indexOf(keycode);
+        if (index != -1) {
+            pressed |= 1 << index;
         }
         return false;
     }
@@ -0,0 +1,285 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.impactors;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongArray;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Tests broadphase pairs for actual contact, either on the calling thread or
+ * split into chunks of consecutive pairs on a shared fork-join pool. Chunks
+ * only read entity data and write their own range of results. Contacts are
+ * then gathered and sorted by entry index, so both modes give the same list.
+ * The world wraps, so each pair is tested with the later box moved to its
+ * copy nearest the earlier one.
+ * When verifying, every parallel run is repeated serially and the two
+ * contact lists compared, and contacts made across a world edge are counted.
+ * @author Raymond
+ */
+public class Narrowphase {
+    public static final int DEFAULT_CHUNK_SIZE = 256;
+    private static ForkJoinPool pool;
+    private boolean parallel;
+    private int chunkSize;
+    private boolean[] hits;
+    private final ChunkTask[] chunks;
+    private final RootTask root;
+    private SpatialHash hash;
+    private IntArray pairs;
+    private TransformStore transforms;
+    private float delta;
+    private boolean verifying;
+    private final LongArray serialContacts;
+    private long verifiedRuns;
+    private long mismatchedRuns;
+    private long wrappedContacts;
+
+    public Narrowphase() {
+        parallel = true;
+        chunkSize = DEFAULT_CHUNK_SIZE;
+        hits = new boolean[64];
+        chunks = new ChunkTask[Runtime.getRuntime().availableProcessors() * 4];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = new ChunkTask();
+        }
+        root = new RootTask();
+        serialContacts = new LongArray();
+    }
+    
+    /**
+     * Finds which pairs touch and appends them to contacts as
+     * (lower entry index << 32 | higher entry index), sorted ascending. A
+     * pair the broadphase reported more than once is only added once.
+     * @param hash the broadphase the pair indices refer to
+     * @param pairs consecutive entry index pairs, lower index first
+     * @param transforms
+     * @param delta
+     * @param contacts 
+     */
+    public void run(SpatialHash hash, IntArray pairs, TransformStore transforms, float delta, LongArray contacts) {
+        int count = pairs.size / 2;
+        if (hits.length < count) {
+            hits = new boolean[Math.max(count, hits.length * 2)];
+        }
+        
+        this.hash = hash;
+        this.pairs = pairs;
+        this.transforms = transforms;
+        this.delta = delta;
+        
+        boolean forked = parallel && count > chunkSize;
+        if (forked) {
+            int chunkCount = Math.min(chunks.length, (count + chunkSize - 1) / chunkSize);
+            int perChunk = (count + chunkCount - 1) / chunkCount;
+            for (int i = 0; i < chunkCount; i++) {
+                chunks[i].reinitialize();
+                chunks[i].from = i * perChunk;
+                chunks[i].to = Math.min(count, (i + 1) * perChunk);
+            }
+            root.reinitialize();
+            root.chunkCount = chunkCount;
+            getPool().invoke(root);
+        } else {
+            test(0, count);
+        }
+        
+        for (int i = 0; i < count; i++) {
+            if (hits[i]) {
+                contacts.add((long) pairs.get(i * 2) << 32 | pairs.get(i * 2 + 1));
+            }
+        }
+        contacts.sort();
+        unique(contacts);
+        
+        if (verifying) {
+            countWrapped(contacts);
+            if (forked) {
+                verify(count, contacts);
+            }
+        }
+        
+        this.hash = null;
+        this.pairs = null;
+        this.transforms = null;
+    }
+    
+    private void test(int from, int to) {
+        for (int i = from; i < to; i++) {
+            Entity entity = hash.getEntry(pairs.get(i * 2));
+            Entity other = hash.getEntry(pairs.get(i * 2 + 1));
+            hits[i] = accepts(entity, other) && overlaps(entity, other);
+        }
+    }
+    
+    private void verify(int count, LongArray contacts) {
+        serialContacts.clear();
+        for (int i = 0; i < count; i++) {
+            Entity entity = hash.getEntry(pairs.get(i * 2));
+            Entity other = hash.getEntry(pairs.get(i * 2 + 1));
+            if (accepts(entity, other) && overlaps(entity, other)) {
+                serialContacts.add((long) pairs.get(i * 2) << 32 | pairs.get(i * 2 + 1));
+            }
+        }
+        serialContacts.sort();
+        unique(serialContacts);
+        
+        verifiedRuns++;
+        if (!serialContacts.equals(contacts)) {
+            mismatchedRuns++;
+        }
+    }
+    
+    private void countWrapped(LongArray contacts) {
+        for (int i = 0; i < contacts.size; i++) {
+            int a = hash.getEntry((int) (contacts.get(i) >>> 32)).getSlot();
+            int b = hash.getEntry((int) contacts.get(i)).getSlot();
+            if (Sweep.wrapShift(transforms.boxX[b], transforms.boxWidth[b], transforms.boxX[a], transforms.boxWidth[a], hash.getWorldWidth()) != 0.0f
+                    || Sweep.wrapShift(transforms.boxY[b], transforms.boxHeight[b], transforms.boxY[a], transforms.boxHeight[a], hash.getWorldHeight()) != 0.0f) {
+                wrappedContacts++;
+            }
+        }
+    }
+    
+    private static void unique(LongArray contacts) {
+        int size = 0;
+        for (int i = 0; i < contacts.size; i++) {
+            if (size == 0 || contacts.get(i) != contacts.get(size - 1)) {
+                contacts.set(size++, contacts.get(i));
+            }
+        }
+        contacts.truncate(size);
+    }
+    
+    private static boolean accepts(Entity entity, Entity other) {
+        return (entity.getCollisionMask() & other.getCollisionCategory()) != 0 || (other.getCollisionMask() & entity.getCollisionCategory()) != 0;
+    }
+    
+    private boolean overlaps(Entity entity, Entity other) {
+        int a = entity.getSlot();
+        int b = other.getSlot();
+        float shiftX = Sweep.wrapShift(transforms.boxX[b], transforms.boxWidth[b], transforms.boxX[a], transforms.boxWidth[a], hash.getWorldWidth());
+        float shiftY = Sweep.wrapShift(transforms.boxY[b], transforms.boxHeight[b], transforms.boxY[a], transforms.boxHeight[a], hash.getWorldHeight());
+        if (entity.isFast() || other.isFast()) {
+            float dx = (transforms.speedX[a] - transforms.speedX[b]) * delta;
+            float dy = (transforms.speedY[a] - transforms.speedY[b]) * delta;
+            return Sweep.timeOfImpact(transforms.boxX[a], transforms.boxY[a], transforms.boxWidth[a], transforms.boxHeight[a], dx, dy,
+                    transforms.boxX[b] + shiftX, transforms.boxY[b] + shiftY, transforms.boxWidth[b], transforms.boxHeight[b]) >= 0.0f;
+        } else {
+            return transforms.overlaps(a, b, shiftX, shiftY);
+        }
+    }
+    
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool();
+        }
+        return pool;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @param chunkSize the smallest number of pairs worth handing to another
+     * thread. Ticks with fewer pairs than this run serially.
+     */
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+    
+    public boolean isVerifying() {
+        return verifying;
+    }
+
+    /**
+     * @param verifying whether to repeat each parallel run on the calling
+     * thread and count the runs whose contacts differ, and count the contacts
+     * made across a world edge. Expects contacts to be empty when run is
+     * called.
+     */
+    public void setVerifying(boolean verifying) {
+        this.verifying = verifying;
+    }
+
+    /**
+     * @return the number of parallel runs checked against a serial run
+     */
+    public long getVerifiedRuns() {
+        return verifiedRuns;
+    }
+
+    /**
+     * @return the number of checked runs whose contacts differed
+     */
+    public long getMismatchedRuns() {
+        return mismatchedRuns;
+    }
+
+    /**
+     * @return the number of contacts found between boxes at opposite edges
+     * of the world while verifying
+     */
+    public long getWrappedContacts() {
+        return wrappedContacts;
+    }
+    
+    private class RootTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private int chunkCount;
+        
+        @Override
+        protected void compute() {
+            for (int i = 1; i < chunkCount; i++) {
+                chunks[i].fork();
+            }
+            chunks[0].invoke();
+            for (int i = 1; i < chunkCount; i++) {
+                chunks[i].join();
+            }
+        }
+    }
+    
+    private class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private int from;
+        private int to;
+        
+        @Override
+        protected void compute() {
+            test(from, to);
+        }
+    }
+}
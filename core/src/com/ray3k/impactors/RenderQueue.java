@@ -0,0 +1,459 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/**
+ * A reusable list of sprite draws, recorded without touching a
+ * {@link SpriteBatch} and flushed to one in a single pass. Each command
+ * keeps its region, transform, packed color and depth in flat arrays.
+ * Before flushing, commands are ordered from the highest depth to the lowest
+ * and grouped by texture within a depth, keeping the recorded order
+ * otherwise. {@link #hash()} sums up a frame for checks that need no GPU.
+ * <p>
+ * With a view set, sprites whose bounds miss it are dropped as they are
+ * added. Sprites added while wrapping also get a ghost on the far side of
+ * each world edge they straddle.
+ * @author Raymond
+ */
+public class RenderQueue {
+    private static final int STRIDE = 10;
+    private static final int X = 0;
+    private static final int Y = 1;
+    private static final int ORIGIN_X = 2;
+    private static final int ORIGIN_Y = 3;
+    private static final int WIDTH = 4;
+    private static final int HEIGHT = 5;
+    private static final int SCALE_X = 6;
+    private static final int SCALE_Y = 7;
+    private static final int ROTATION = 8;
+    private static final int COLOR = 9;
+    private static final float WHITE = Color.WHITE.toFloatBits();
+    private TextureRegion[] regions;
+    private float[] data;
+    private int[] depths;
+    private long[] keys;
+    private int[] order;
+    private int[] scratch;
+    private int size;
+    private final ObjectIntMap<Texture> textureIds;
+    private float color;
+    private int depth;
+    private boolean sortingByTexture;
+    private boolean sorted;
+    private boolean culling;
+    private float viewX;
+    private float viewY;
+    private float viewWidth;
+    private float viewHeight;
+    private boolean wrapping;
+    private float wrapWidth;
+    private float wrapHeight;
+    private int culledCount;
+
+    public RenderQueue() {
+        this(64);
+    }
+    
+    public RenderQueue(int capacity) {
+        regions = new TextureRegion[capacity];
+        data = new float[capacity * STRIDE];
+        depths = new int[capacity];
+        keys = new long[capacity];
+        order = new int[capacity];
+        scratch = new int[capacity];
+        textureIds = new ObjectIntMap<Texture>();
+        sortingByTexture = true;
+        clear();
+    }
+    
+    /**
+     * Forgets every command and resets the color to white and the depth to 0.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            regions[i] = null;
+        }
+        size = 0;
+        culledCount = 0;
+        textureIds.clear();
+        color = WHITE;
+        depth = 0;
+        sorted = true;
+    }
+    
+    public void add(TextureRegion region, float x, float y, float originX, float originY, float width, float height, float scaleX, float scaleY, float rotation) {
+        if (!culling && !wrapping) {
+            push(region, x, y, originX, originY, width, height, scaleX, scaleY, rotation);
+            return;
+        }
+        
+        float centerX = x + originX;
+        float centerY = y + originY;
+        float minX, maxX, minY, maxY;
+        if (rotation == 0.0f) {
+            float left = -originX * scaleX;
+            float right = (width - originX) * scaleX;
+            float bottom = -originY * scaleY;
+            float top = (height - originY) * scaleY;
+            minX = centerX + Math.min(left, right);
+            maxX = centerX + Math.max(left, right);
+            minY = centerY + Math.min(bottom, top);
+            maxY = centerY + Math.max(bottom, top);
+        } else {
+            //any rotation stays within the circle through the farthest corner
+            float reachX = Math.max(Math.abs(originX), Math.abs(width - originX));
+            float reachY = Math.max(Math.abs(originY), Math.abs(height - originY));
+            float radius = (float) Math.sqrt(reachX * reachX + reachY * reachY) * Math.max(Math.abs(scaleX), Math.abs(scaleY));
+            minX = centerX - radius;
+            maxX = centerX + radius;
+            minY = centerY - radius;
+            maxY = centerY + radius;
+        }
+        
+        float shiftX = 0.0f;
+        float shiftY = 0.0f;
+        if (wrapping) {
+            if (maxX > wrapWidth) {
+                shiftX = -wrapWidth;
+            } else if (minX < 0.0f) {
+                shiftX = wrapWidth;
+            }
+            
+            if (maxY > wrapHeight) {
+                shiftY = -wrapHeight;
+            } else if (minY < 0.0f) {
+                shiftY = wrapHeight;
+            }
+        }
+        
+        addVisible(region, x, y, originX, originY, width, height, scaleX, scaleY, rotation, minX, maxX, minY, maxY);
+        if (shiftX != 0.0f) {
+            addVisible(region, x + shiftX, y, originX, originY, width, height, scaleX, scaleY, rotation, minX + shiftX, maxX + shiftX, minY, maxY);
+        }
+        if (shiftY != 0.0f) {
+            addVisible(region, x, y + shiftY, originX, originY, width, height, scaleX, scaleY, rotation, minX, maxX, minY + shiftY, maxY + shiftY);
+        }
+        if (shiftX != 0.0f && shiftY != 0.0f) {
+            addVisible(region, x + shiftX, y + shiftY, originX, originY, width, height, scaleX, scaleY, rotation, minX + shiftX, maxX + shiftX, minY + shiftY, maxY + shiftY);
+        }
+    }
+    
+    private void addVisible(TextureRegion region, float x, float y, float originX, float originY, float width, float height, float scaleX, float scaleY, float rotation,
+            float minX, float maxX, float minY, float maxY) {
+        if (culling && (maxX <= viewX || minX >= viewX + viewWidth || maxY <= viewY || minY >= viewY + viewHeight)) {
+            culledCount++;
+        } else {
+            push(region, x, y, originX, originY, width, height, scaleX, scaleY, rotation);
+        }
+    }
+    
+    private void push(TextureRegion region, float x, float y, float originX, float originY, float width, float height, float scaleX, float scaleY, float rotation) {
+        if (size == regions.length) {
+            grow();
+        }
+        
+        int textureId = textureIds.get(region.getTexture(), -1);
+        if (textureId == -1) {
+            textureId = textureIds.size;
+            textureIds.put(region.getTexture(), textureId);
+        }
+        
+        if (size > 0 && (depth > depths[size - 1] || sortingByTexture && textureId != (int) (keys[size - 1] & 0xFFFF))) {
+            sorted = false;
+        }
+        
+        regions[size] = region;
+        int offset = size * STRIDE;
+        data[offset + X] = x;
+        data[offset + Y] = y;
+        data[offset + ORIGIN_X] = originX;
+        data[offset + ORIGIN_Y] = originY;
+        data[offset + WIDTH] = width;
+        data[offset + HEIGHT] = height;
+        data[offset + SCALE_X] = scaleX;
+        data[offset + SCALE_Y] = scaleY;
+        data[offset + ROTATION] = rotation;
+        data[offset + COLOR] = color;
+        depths[size] = depth;
+        //highest depth first, then texture, and the merge sort keeps the recorded order
+        keys[size] = ((long) Integer.MAX_VALUE - depth) << 16 | (sortingByTexture ? textureId & 0xFFFF : 0);
+        order[size] = size;
+        size++;
+    }
+    
+    /**
+     * Adds a region at its own size, unscaled and unrotated.
+     * @param region
+     * @param x
+     * @param y
+     */
+    public void add(TextureRegion region, float x, float y) {
+        add(region, x, y, 0.0f, 0.0f, region.getRegionWidth(), region.getRegionHeight(), 1.0f, 1.0f, 0.0f);
+    }
+    
+    private void grow() {
+        int capacity = Math.max(16, regions.length * 2);
+        TextureRegion[] newRegions = new TextureRegion[capacity];
+        System.arraycopy(regions, 0, newRegions, 0, size);
+        regions = newRegions;
+        float[] newData = new float[capacity * STRIDE];
+        System.arraycopy(data, 0, newData, 0, size * STRIDE);
+        data = newData;
+        int[] newDepths = new int[capacity];
+        System.arraycopy(depths, 0, newDepths, 0, size);
+        depths = newDepths;
+        long[] newKeys = new long[capacity];
+        System.arraycopy(keys, 0, newKeys, 0, size);
+        keys = newKeys;
+        int[] newOrder = new int[capacity];
+        System.arraycopy(order, 0, newOrder, 0, size);
+        order = newOrder;
+        scratch = new int[capacity];
+    }
+    
+    /**
+     * Puts the commands in draw order. Skipped when they were recorded in
+     * that order already.
+     */
+    public void sort() {
+        if (sorted) {
+            return;
+        }
+        
+        //bottom up merge sort of the indices, stable so equal keys keep their order
+        int[] from = order;
+        int[] to = scratch;
+        for (int width = 1; width < size; width *= 2) {
+            for (int start = 0; start < size; start += width * 2) {
+                int middle = Math.min(start + width, size);
+                int end = Math.min(start + width * 2, size);
+                int left = start;
+                int right = middle;
+                for (int i = start; i < end; i++) {
+                    if (left < middle && (right >= end || keys[from[left]] <= keys[from[right]])) {
+                        to[i] = from[left++];
+                    } else {
+                        to[i] = from[right++];
+                    }
+                }
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        order = from;
+        scratch = to;
+        sorted = true;
+    }
+    
+    /**
+     * Draws every command in order. The batch must be drawing, and gets its
+     * own color back afterwards.
+     * @param spriteBatch
+     */
+    public void flush(SpriteBatch spriteBatch) {
+        sort();
+        
+        float batchColor = spriteBatch.getPackedColor();
+        float lastColor = batchColor;
+        for (int i = 0; i < size; i++) {
+            int index = order[i];
+            int offset = index * STRIDE;
+            float commandColor = data[offset + COLOR];
+            if (commandColor != lastColor) {
+                spriteBatch.setColor(commandColor);
+                lastColor = commandColor;
+            }
+            spriteBatch.draw(regions[index], data[offset + X], data[offset + Y], data[offset + ORIGIN_X], data[offset + ORIGIN_Y],
+                    data[offset + WIDTH], data[offset + HEIGHT], data[offset + SCALE_X], data[offset + SCALE_Y], data[offset + ROTATION]);
+        }
+        
+        if (lastColor != batchColor) {
+            spriteBatch.setColor(batchColor);
+        }
+    }
+    
+    /**
+     * @return a hash of the commands in draw order. Regions count by their
+     * bounds, so the hash is the same from run to run.
+     */
+    public int hash() {
+        sort();
+        
+        int hash = size;
+        for (int i = 0; i < size; i++) {
+            int index = order[i];
+            TextureRegion region = regions[index];
+            hash = 31 * hash + region.getRegionX();
+            hash = 31 * hash + region.getRegionY();
+            hash = 31 * hash + region.getRegionWidth();
+            hash = 31 * hash + region.getRegionHeight();
+            hash = 31 * hash + depths[index];
+            int offset = index * STRIDE;
+            for (int j = 0; j < STRIDE; j++) {
+                hash = 31 * hash + Float.floatToIntBits(data[offset + j]);
+            }
+        }
+        return hash;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public TextureRegion getRegion(int index) {
+        return regions[order[index]];
+    }
+    
+    public float getX(int index) {
+        return data[order[index] * STRIDE + X];
+    }
+    
+    public float getY(int index) {
+        return data[order[index] * STRIDE + Y];
+    }
+    
+    public int getDepth(int index) {
+        return depths[order[index]];
+    }
+    
+    /**
+     * @param index
+     * @return the packed color of the command
+     * @see Color#toFloatBits()
+     */
+    public float getColor(int index) {
+        return data[order[index] * STRIDE + COLOR];
+    }
+    
+    /**
+     * @param depth the depth of the commands added next
+     */
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+    
+    public int getDepth() {
+        return depth;
+    }
+    
+    /**
+     * Sets the color of the commands added next.
+     * @param r
+     * @param g
+     * @param b
+     * @param a
+     */
+    public void setColor(float r, float g, float b, float a) {
+        color = Color.toFloatBits(r, g, b, a);
+    }
+    
+    public void setColor(Color color) {
+        this.color = color.toFloatBits();
+    }
+
+    /**
+     * Drops the sprites added from now on that fall outside the rectangle.
+     * @param x
+     * @param y
+     * @param width
+     * @param height
+     */
+    public void setView(float x, float y, float width, float height) {
+        culling = true;
+        viewX = x;
+        viewY = y;
+        viewWidth = width;
+        viewHeight = height;
+    }
+    
+    /**
+     * Culls to what the camera sees, ignoring its rotation.
+     * @param camera
+     */
+    public void setView(OrthographicCamera camera) {
+        float width = camera.viewportWidth * camera.zoom;
+        float height = camera.viewportHeight * camera.zoom;
+        setView(camera.position.x - width / 2.0f, camera.position.y - height / 2.0f, width, height);
+    }
+    
+    /**
+     * Stops culling.
+     */
+    public void clearView() {
+        culling = false;
+    }
+
+    public boolean isCulling() {
+        return culling;
+    }
+    
+    /**
+     * @return the sprites and ghosts dropped by the view since the last
+     * {@link #clear()}
+     */
+    public int getCulledCount() {
+        return culledCount;
+    }
+    
+    /**
+     * @param width the width of the world that wrapping sprites loop around
+     * @param height the height of the world
+     */
+    public void setWrapSize(float width, float height) {
+        wrapWidth = width;
+        wrapHeight = height;
+    }
+
+    public boolean isWrapping() {
+        return wrapping;
+    }
+
+    /**
+     * @param wrapping whether the sprites added next get ghosts on the far
+     * side of the world edges they straddle
+     */
+    public void setWrapping(boolean wrapping) {
+        this.wrapping = wrapping;
+    }
+
+    public boolean isSortingByTexture() {
+        return sortingByTexture;
+    }
+
+    /**
+     * @param sortingByTexture false to keep the recorded order within a
+     * depth, for when overlapping sprites of one depth use different textures
+     */
+    public void setSortingByTexture(boolean sortingByTexture) {
+        this.sortingByTexture = sortingByTexture;
+    }
+}
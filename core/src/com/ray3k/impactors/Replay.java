@@ -0,0 +1,205 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.ByteArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.StreamUtils;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Everything needed to play a game session again tick for tick: the random
+ * seed, the world setup and one input frame per tick as built by
+ * {@link InputManager#capture()}. A checksum of the world is kept every
+ * {@link #CHECKSUM_INTERVAL} ticks so a replay can tell where it diverged.
+ * On disk, runs of identical frames are stored once with their length.
+ * @author Raymond
+ */
+public class Replay {
+    public static final int CHECKSUM_INTERVAL = 60;
+    private static final int MAGIC = 0x494D5052;
+    private static final int VERSION = 5;
+    private final long seed;
+    private final boolean ecs;
+    private final int width;
+    private final int height;
+    private final float tickRate;
+    private final ByteArray frames;
+    private final IntArray checksums;
+
+    public Replay(long seed, boolean ecs, int width, int height, float tickRate) {
+        this.seed = seed;
+        this.ecs = ecs;
+        this.width = width;
+        this.height = height;
+        this.tickRate = tickRate;
+        frames = new ByteArray();
+        checksums = new IntArray();
+    }
+    
+    public void addFrame(int frame) {
+        frames.add((byte) frame);
+    }
+    
+    /**
+     * @param tick
+     * @return the frame recorded for the tick, or an empty frame past the
+     * end of the recording
+     */
+    public int getFrame(int tick) {
+        return tick < frames.size ? frames.get(tick) & 0xFF : 0;
+    }
+    
+    public int getTickCount() {
+        return frames.size;
+    }
+    
+    public void addChecksum(int checksum) {
+        checksums.add(checksum);
+    }
+    
+    /**
+     * @param index
+     * @return the checksum taken after tick (index + 1) * CHECKSUM_INTERVAL
+     */
+    public int getChecksum(int index) {
+        return checksums.get(index);
+    }
+    
+    public int getChecksumCount() {
+        return checksums.size;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public boolean isEcs() {
+        return ecs;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public float getTickRate() {
+        return tickRate;
+    }
+    
+    public void write(FileHandle file) {
+        DataOutputStream output = null;
+        try {
+            output = new DataOutputStream(file.write(false, 8192));
+            output.writeInt(MAGIC);
+            output.writeByte(VERSION);
+            output.writeLong(seed);
+            output.writeBoolean(ecs);
+            output.writeInt(width);
+            output.writeInt(height);
+            output.writeFloat(tickRate);
+            
+            output.writeInt(frames.size);
+            int i = 0;
+            while (i < frames.size) {
+                byte frame = frames.get(i);
+                int run = 1;
+                while (i + run < frames.size && frames.get(i + run) == frame) {
+                    run++;
+                }
+                output.writeByte(frame);
+                writeVarInt(output, run);
+                i += run;
+            }
+            
+            output.writeInt(checksums.size);
+            for (int j = 0; j < checksums.size; j++) {
+                output.writeInt(checksums.get(j));
+            }
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error writing replay: " + file.path(), e);
+        } finally {
+            StreamUtils.closeQuietly(output);
+        }
+    }
+    
+    public static Replay read(FileHandle file) {
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(file.read(8192));
+            if (input.readInt() != MAGIC || input.readByte() != VERSION) {
+                throw new GdxRuntimeException("Not a replay or unsupported version: " + file.path());
+            }
+            Replay replay = new Replay(input.readLong(), input.readBoolean(), input.readInt(), input.readInt(), input.readFloat());
+            
+            int tickCount = input.readInt();
+            replay.frames.ensureCapacity(tickCount);
+            while (replay.frames.size < tickCount) {
+                byte frame = input.readByte();
+                int run = readVarInt(input);
+                for (int i = 0; i < run; i++) {
+                    replay.frames.add(frame);
+                }
+            }
+            
+            int checksumCount = input.readInt();
+            replay.checksums.ensureCapacity(checksumCount);
+            for (int i = 0; i < checksumCount; i++) {
+                replay.checksums.add(input.readInt());
+            }
+            return replay;
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error reading replay: " + file.path(), e);
+        } finally {
+            StreamUtils.closeQuietly(input);
+        }
+    }
+    
+    private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+    
+    private static int readVarInt(DataInputStream input) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = input.readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.impactors;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Uniform grid broadphase over entity collision boxes. Cells are stretched so
+ * a whole number of them spans the world, and cell coordinates are folded
+ * onto that grid. A box that hangs past an edge therefore shares cells with
+ * the boxes at the opposite edge, and {@link #findPairs(IntArray)} reports
+ * those pairs too, as the world wraps.
+ * <p>
+ * The same grid answers radius, nearest and raycast queries. Those only match
+ * entries in the unfolded cells they search and do not look across edges.
+ * They measure from entity positions and collision boxes, so entries used for
+ * queries should cover both.
+ * @author Raymond
+ */
+public class SpatialHash {
+    private float cellSize;
+    private float cellWidth;
+    private float cellHeight;
+    private float worldWidth;
+    private float worldHeight;
+    private int columns;
+    private int rows;
+    private int[] cellHeads;
+    private int[] nodeNext;
+    private int[] nodeEntry;
+    private int[] nodeCellX;
+    private int[] nodeCellY;
+    private int nodeCount;
+    private Entity[] entries;
+    private int[] entryMinX;
+    private int[] entryMinY;
+    private int entryCount;
+    private int[] entryStamps;
+    private int stamp;
+    private final FloatArray distances;
+    private final IntArray found;
+
+    public SpatialHash(float cellSize) {
+        this.cellSize = cellSize;
+        cellWidth = cellSize;
+        cellHeight = cellSize;
+        cellHeads = new int[0];
+        nodeNext = new int[64];
+        nodeEntry = new int[64];
+        nodeCellX = new int[64];
+        nodeCellY = new int[64];
+        entries = new Entity[32];
+        entryMinX = new int[32];
+        entryMinY = new int[32];
+        entryStamps = new int[32];
+        distances = new FloatArray();
+        found = new IntArray();
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    public void setCellSize(float cellSize) {
+        this.cellSize = cellSize;
+    }
+    
+    /**
+     * Empties the grid and fits it to the world. The cells are at least the
+     * cell size and as close to it as a whole number of them allows.
+     * @param worldWidth
+     * @param worldHeight 
+     */
+    public void clear(float worldWidth, float worldHeight) {
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        columns = Math.max(1, MathUtils.floor(worldWidth / cellSize));
+        rows = Math.max(1, MathUtils.floor(worldHeight / cellSize));
+        cellWidth = worldWidth / columns;
+        cellHeight = worldHeight / rows;
+        if (cellHeads.length < columns * rows) {
+            cellHeads = new int[columns * rows];
+        }
+        for (int i = 0; i < columns * rows; i++) {
+            cellHeads[i] = -1;
+        }
+        
+        for (int i = 0; i < entryCount; i++) {
+            entries[i] = null;
+        }
+        entryCount = 0;
+        nodeCount = 0;
+    }
+    
+    public int insert(Entity entity, float x, float y, float width, float height) {
+        if (entryCount == entries.length) {
+            growEntries();
+        }
+        
+        int index = entryCount++;
+        int minX = MathUtils.floor(x / cellWidth);
+        int minY = MathUtils.floor(y / cellHeight);
+        int maxX = MathUtils.floor((x + width) / cellWidth);
+        int maxY = MathUtils.floor((y + height) / cellHeight);
+        entries[index] = entity;
+        entryMinX[index] = minX;
+        entryMinY[index] = minY;
+        entryStamps[index] = stamp;
+        
+        for (int cellY = minY; cellY <= maxY; cellY++) {
+            for (int cellX = minX; cellX <= maxX; cellX++) {
+                if (nodeCount == nodeNext.length) {
+                    growNodes();
+                }
+                
+                int cell = fold(cellX, columns) + fold(cellY, rows) * columns;
+                nodeEntry[nodeCount] = index;
+                nodeCellX[nodeCount] = cellX;
+                nodeCellY[nodeCount] = cellY;
+                nodeNext[nodeCount] = cellHeads[cell];
+                cellHeads[cell] = nodeCount;
+                nodeCount++;
+            }
+        }
+        
+        return index;
+    }
+    
+    /**
+     * Appends every pair of entries that share at least one folded cell to
+     * the given array as consecutive entry indices, lower index first. Two
+     * entries that meet across an edge share a folded cell whose unfolded
+     * coordinates differ by the grid size. Each pair is reported once for
+     * every way the two entries line up, from the first cell they have in
+     * common that way, so only entries spanning half the world can be
+     * reported twice.
+     * @param pairs 
+     */
+    public void findPairs(IntArray pairs) {
+        for (int cell = 0; cell < columns * rows; cell++) {
+            for (int node = cellHeads[cell]; node != -1; node = nodeNext[node]) {
+                int cellX = nodeCellX[node];
+                int cellY = nodeCellY[node];
+                int a = nodeEntry[node];
+                
+                for (int other = nodeNext[node]; other != -1; other = nodeNext[other]) {
+                    int b = nodeEntry[other];
+                    int shiftX = nodeCellX[other] - cellX;
+                    int shiftY = nodeCellY[other] - cellY;
+                    if (a != b && cellX == Math.max(entryMinX[a], entryMinX[b] - shiftX) && cellY == Math.max(entryMinY[a], entryMinY[b] - shiftY)) {
+                        pairs.add(Math.min(a, b));
+                        pairs.add(Math.max(a, b));
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Finds entities whose position is closer than radius to the given point.
+     * @param x
+     * @param y
+     * @param radius
+     * @param <T>
+     * @param type the exact class to accept or null for any
+     * @param out cleared and filled with the results in the order their
+     * entries were inserted
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Entity> void queryRadius(float x, float y, float radius, Class<T> type, Array<? super T> out) {
+        out.clear();
+        stamp++;
+        
+        int minX = MathUtils.floor((x - radius) / cellWidth);
+        int minY = MathUtils.floor((y - radius) / cellHeight);
+        int maxX = MathUtils.floor((x + radius) / cellWidth);
+        int maxY = MathUtils.floor((y + radius) / cellHeight);
+        float radius2 = radius * radius;
+        
+        for (int cellY = minY; cellY <= maxY; cellY++) {
+            for (int cellX = minX; cellX <= maxX; cellX++) {
+                for (int node = cellHeads[fold(cellX, columns) + fold(cellY, rows) * columns]; node != -1; node = nodeNext[node]) {
+                    Entity entity = visit(node, cellX, cellY, type);
+                    if (entity != null && Vector2.dst2(x, y, entity.getX(), entity.getY()) < radius2) {
+                        found.add(nodeEntry[node]);
+                    }
+                }
+            }
+        }
+        
+        found.sort();
+        for (int i = 0; i < found.size; i++) {
+            out.add((T) entries[found.get(i)]);
+        }
+        found.clear();
+    }
+    
+    /**
+     * Finds up to count entities whose position is closest to the given
+     * point, searching outward ring by ring from the point's cell.
+     * @param x
+     * @param y
+     * @param count
+     * @param maxDistance only entities closer than this are returned
+     * @param <T>
+     * @param type the exact class to accept or null for any
+     * @param out cleared and filled with the results, nearest first
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Entity> void queryNearest(float x, float y, int count, float maxDistance, Class<T> type, Array<? super T> out) {
+        out.clear();
+        distances.clear();
+        stamp++;
+        
+        int centerX = MathUtils.floor(x / cellWidth);
+        int centerY = MathUtils.floor(y / cellHeight);
+        int maxRing = Math.max(columns, rows) + 2;
+        
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int cellY = centerY - ring; cellY <= centerY + ring; cellY++) {
+                int step = cellY == centerY - ring || cellY == centerY + ring ? 1 : Math.max(1, 2 * ring);
+                for (int cellX = centerX - ring; cellX <= centerX + ring; cellX += step) {
+                    for (int node = cellHeads[fold(cellX, columns) + fold(cellY, rows) * columns]; node != -1; node = nodeNext[node]) {
+                        Entity entity = visit(node, cellX, cellY, type);
+                        if (entity != null) {
+                            float distance = Vector2.dst(x, y, entity.getX(), entity.getY());
+                            if (distance < maxDistance && (out.size < count || distance < distances.peek())) {
+                                int index = distances.size;
+                                while (index > 0 && distances.get(index - 1) > distance) {
+                                    index--;
+                                }
+                                
+                                if (out.size == count) {
+                                    out.pop();
+                                    distances.pop();
+                                }
+                                out.insert(index, (T) entity);
+                                distances.insert(index, distance);
+                            }
+                        }
+                    }
+                }
+            }
+            
+            float reached = ring * Math.min(cellWidth, cellHeight);
+            if (reached >= maxDistance || out.size == count && distances.peek() <= reached) {
+                break;
+            }
+        }
+    }
+    
+    /**
+     * Walks the cells along a segment and finds the first collision box it
+     * enters.
+     * @param startX
+     * @param startY
+     * @param endX
+     * @param endY
+     * @param categoryMask only entities whose category matches are hit
+     * @param hitPoint set to where the segment enters the box if not null
+     * @return the first entity hit or null
+     */
+    public Entity raycast(float startX, float startY, float endX, float endY, int categoryMask, Vector2 hitPoint) {
+        stamp++;
+        
+        float dx = endX - startX;
+        float dy = endY - startY;
+        int cellX = MathUtils.floor(startX / cellWidth);
+        int cellY = MathUtils.floor(startY / cellHeight);
+        int endCellX = MathUtils.floor(endX / cellWidth);
+        int endCellY = MathUtils.floor(endY / cellHeight);
+        int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+        int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+        float deltaX = stepX == 0 ? Float.MAX_VALUE : cellWidth / Math.abs(dx);
+        float deltaY = stepY == 0 ? Float.MAX_VALUE : cellHeight / Math.abs(dy);
+        float nextX = stepX == 0 ? Float.MAX_VALUE : ((stepX > 0 ? cellX + 1 : cellX) * cellWidth - startX) / dx;
+        float nextY = stepY == 0 ? Float.MAX_VALUE : ((stepY > 0 ? cellY + 1 : cellY) * cellHeight - startY) / dy;
+        int steps = Math.abs(endCellX - cellX) + Math.abs(endCellY - cellY);
+        
+        Entity hit = null;
+        float hitTime = Float.MAX_VALUE;
+        for (int i = 0; i <= steps; i++) {
+            for (int node = cellHeads[fold(cellX, columns) + fold(cellY, rows) * columns]; node != -1; node = nodeNext[node]) {
+                Entity entity = visit(node, cellX, cellY, null);
+                if (entity != null && (entity.getCollisionCategory() & categoryMask) != 0) {
+                    Rectangle box = entity.getCollisionBox();
+                    if (box.width > 0 && box.height > 0) {
+                        float time = Sweep.timeOfImpact(endX, endY, 0.0f, 0.0f, dx, dy, box.x, box.y, box.width, box.height);
+                        if (time >= 0.0f && time < hitTime) {
+                            hitTime = time;
+                            hit = entity;
+                        }
+                    }
+                }
+            }
+            
+            if (hitTime <= Math.min(nextX, nextY)) {
+                break;
+            }
+            
+            if (nextX < nextY) {
+                cellX += stepX;
+                nextX += deltaX;
+            } else {
+                cellY += stepY;
+                nextY += deltaY;
+            }
+        }
+        
+        if (hit != null && hitPoint != null) {
+            hitPoint.set(startX + dx * hitTime, startY + dy * hitTime);
+        }
+        return hit;
+    }
+    
+    /**
+     * @return the node's entity if it sits in the given unfolded cell, has
+     * not been seen by the current query, is alive and matches the type
+     */
+    private Entity visit(int node, int cellX, int cellY, Class<?> type) {
+        if (nodeCellX[node] == cellX && nodeCellY[node] == cellY) {
+            int entry = nodeEntry[node];
+            if (entryStamps[entry] != stamp) {
+                entryStamps[entry] = stamp;
+                Entity entity = entries[entry];
+                if (!entity.isDestroyed() && (type == null || entity.getClass() == type)) {
+                    return entity;
+                }
+            }
+        }
+        return null;
+    }
+    
+    public Entity getEntry(int index) {
+        return entries[index];
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * @return the width of the world the grid was last cleared for
+     */
+    public float getWorldWidth() {
+        return worldWidth;
+    }
+
+    public float getWorldHeight() {
+        return worldHeight;
+    }
+    
+    private static int fold(int cell, int size) {
+        int folded = cell % size;
+        return folded < 0 ? folded + size : folded;
+    }
+    
+    private void growEntries() {
+        int size = entries.length * 2;
+        Entity[] newEntries = new Entity[size];
+        System.arraycopy(entries, 0, newEntries, 0, entryCount);
+        entries = newEntries;
+        entryMinX = copyOf(entryMinX, size);
+        entryMinY = copyOf(entryMinY, size);
+        entryStamps = copyOf(entryStamps, size);
+    }
+    
+    private void growNodes() {
+        int size = nodeNext.length * 2;
+        nodeNext = copyOf(nodeNext, size);
+        nodeEntry = copyOf(nodeEntry, size);
+        nodeCellX = copyOf(nodeCellX, size);
+        nodeCellY = copyOf(nodeCellY, size);
+    }
+    
+    private static int[] copyOf(int[] array, int size) {
+        int[] newArray = new int[size];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        return newArray;
+    }
+}
@@ -29,7 +29,7 @@ public abstract class State {
     private Core core;
     
     public abstract void start();
-    public abstract void draw(SpriteBatch spriteBatch, float delta);
+    public abstract void draw(SpriteBatch spriteBatch, float alpha);
     public abstract void act(float delta);
     public abstract void stop();
     public abstract void dispose();
@@ -26,6 +26,7 @@ package com.ray3k.impactors;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.utils.ObjectMap;
+import com.ray3k.impactors.profiling.Profiler;
 
 public class StateManager {
     private final ObjectMap<String, State> states;
@@ -41,15 +42,19 @@ public class StateManager {
         states.put(name, state);
     }
     
-    public void draw(SpriteBatch spriteBatch, float delta) {
+    public void draw(SpriteBatch spriteBatch, float alpha) {
         if (loadedState != null) {
-            loadedState.draw(spriteBatch, delta);
+            core.getProfiler().begin(Profiler.DRAW);
+            loadedState.draw(spriteBatch, alpha);
+            core.getProfiler().end(Profiler.DRAW);
         }
     }
     
     public void act(float delta) {
         if (loadedState != null) {
+            core.getProfiler().begin(Profiler.TICK);
             loadedState.act(delta);
+            core.getProfiler().end(Profiler.TICK);
         }
     }
     
@@ -90,6 +95,10 @@ public class StateManager {
         return states.get(name);
     }
 
+    public State getLoadedState() {
+        return loadedState;
+    }
+
     void resize(int width, int height) {
         if (loadedState != null) {
             loadedState.resize(width, height);
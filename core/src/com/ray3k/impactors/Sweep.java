@@ -0,0 +1,106 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.impactors;
+
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * Swept AABB tests for entities that can cross another collision box within a
+ * single tick, and the shift that lines up two boxes across the edges of a
+ * world that wraps.
+ * @author Raymond
+ */
+public class Sweep {
+    /**
+     * Finds when a box that moved by (dx, dy) during the tick to end up at
+     * {@code moving} first overlapped {@code target}.
+     * @param moving the box at the end of the tick
+     * @param dx
+     * @param dy
+     * @param target
+     * @return the fraction of the tick in [0, 1] at which the boxes first
+     * overlap or -1 if they never do
+     */
+    public static float timeOfImpact(Rectangle moving, float dx, float dy, Rectangle target) {
+        return timeOfImpact(moving.x, moving.y, moving.width, moving.height, dx, dy, target.x, target.y, target.width, target.height);
+    }
+    
+    public static float timeOfImpact(float x, float y, float width, float height, float dx, float dy, float targetX, float targetY, float targetWidth, float targetHeight) {
+        float startX = x - dx;
+        float startY = y - dy;
+        float minX = targetX - width;
+        float maxX = targetX + targetWidth;
+        float minY = targetY - height;
+        float maxY = targetY + targetHeight;
+        
+        float enter = 0.0f;
+        float exit = 1.0f;
+        
+        if (dx == 0.0f) {
+            if (startX <= minX || startX >= maxX) {
+                return -1.0f;
+            }
+        } else {
+            float t1 = (minX - startX) / dx;
+            float t2 = (maxX - startX) / dx;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        
+        if (dy == 0.0f) {
+            if (startY <= minY || startY >= maxY) {
+                return -1.0f;
+            }
+        } else {
+            float t1 = (minY - startY) / dy;
+            float t2 = (maxY - startY) / dy;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        
+        return enter < exit ? enter : -1.0f;
+    }
+    
+    /**
+     * Finds how far to move a box along one axis so it is the copy nearest to
+     * another box in a world that wraps, letting boxes at opposite edges
+     * touch.
+     * @param x the box to move
+     * @param width
+     * @param otherX the box to move near
+     * @param otherWidth
+     * @param worldSize width or height of the world
+     * @return -worldSize, 0 or worldSize
+     */
+    public static float wrapShift(float x, float width, float otherX, float otherWidth, float worldSize) {
+        float distance = x + width / 2.0f - (otherX + otherWidth / 2.0f);
+        if (distance > worldSize / 2.0f) {
+            return -worldSize;
+        } else if (distance < -worldSize / 2.0f) {
+            return worldSize;
+        }
+        return 0.0f;
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.impactors;
+
+/**
+ * Parallel arrays holding the transform, velocity and collision box of every
+ * entity in an {@link EntityManager}, indexed by the entity's slot. Slots are
+ * kept packed so the integration kernel runs over a contiguous range.
+ * <p>
+ * Position and rotation from before the last integration are kept for
+ * drawing between ticks. A slot has no previous transform until it has been
+ * integrated once.
+ * @author Raymond
+ */
+public class TransformStore {
+    float[] x;
+    float[] y;
+    float[] speedX;
+    float[] speedY;
+    float[] gravityX;
+    float[] gravityY;
+    float[] offsetX;
+    float[] offsetY;
+    float[] scaleX;
+    float[] scaleY;
+    float[] rotation;
+    float[] previousX;
+    float[] previousY;
+    float[] previousRotation;
+    boolean[] hasPrevious;
+    float[] boxX;
+    float[] boxY;
+    float[] boxOffsetX;
+    float[] boxOffsetY;
+    float[] boxWidth;
+    float[] boxHeight;
+    private Entity[] owners;
+    private int size;
+
+    public TransformStore() {
+        this(64);
+    }
+    
+    public TransformStore(int capacity) {
+        resize(capacity);
+    }
+    
+    /**
+     * Claims a slot for the given entity with zero motion and unit scale.
+     * @param owner
+     * @return the new slot
+     */
+    public int allocate(Entity owner) {
+        if (size == owners.length) {
+            resize(size * 2);
+        }
+        
+        int slot = size++;
+        owners[slot] = owner;
+        x[slot] = 0.0f;
+        y[slot] = 0.0f;
+        speedX[slot] = 0.0f;
+        speedY[slot] = 0.0f;
+        gravityX[slot] = 0.0f;
+        gravityY[slot] = 0.0f;
+        offsetX[slot] = 0.0f;
+        offsetY[slot] = 0.0f;
+        scaleX[slot] = 1.0f;
+        scaleY[slot] = 1.0f;
+        rotation[slot] = 0.0f;
+        hasPrevious[slot] = false;
+        boxX[slot] = 0.0f;
+        boxY[slot] = 0.0f;
+        boxOffsetX[slot] = 0.0f;
+        boxOffsetY[slot] = 0.0f;
+        boxWidth[slot] = 0.0f;
+        boxHeight[slot] = 0.0f;
+        return slot;
+    }
+    
+    /**
+     * Releases a slot by moving the last slot into it. The moved entity is
+     * told its new slot.
+     * @param slot 
+     */
+    public void free(int slot) {
+        int last = --size;
+        if (slot != last) {
+            x[slot] = x[last];
+            y[slot] = y[last];
+            speedX[slot] = speedX[last];
+            speedY[slot] = speedY[last];
+            gravityX[slot] = gravityX[last];
+            gravityY[slot] = gravityY[last];
+            offsetX[slot] = offsetX[last];
+            offsetY[slot] = offsetY[last];
+            scaleX[slot] = scaleX[last];
+            scaleY[slot] = scaleY[last];
+            rotation[slot] = rotation[last];
+            previousX[slot] = previousX[last];
+            previousY[slot] = previousY[last];
+            previousRotation[slot] = previousRotation[last];
+            hasPrevious[slot] = hasPrevious[last];
+            boxX[slot] = boxX[last];
+            boxY[slot] = boxY[last];
+            boxOffsetX[slot] = boxOffsetX[last];
+            boxOffsetY[slot] = boxOffsetY[last];
+            boxWidth[slot] = boxWidth[last];
+            boxHeight[slot] = boxHeight[last];
+            owners[slot] = owners[last];
+            owners[slot].setSlot(slot);
+        }
+        owners[last] = null;
+    }
+    
+    /**
+     * Remembers the current transforms as the previous ones, applies gravity
+     * to velocity, velocity to position and moves every collision box along
+     * with its entity.
+     * @param delta 
+     */
+    public void integrate(float delta) {
+        final float[] x = this.x, y = this.y, speedX = this.speedX, speedY = this.speedY;
+        final float[] gravityX = this.gravityX, gravityY = this.gravityY;
+        final float[] boxX = this.boxX, boxY = this.boxY, boxOffsetX = this.boxOffsetX, boxOffsetY = this.boxOffsetY;
+        final int size = this.size;
+        
+        System.arraycopy(x, 0, previousX, 0, size);
+        System.arraycopy(y, 0, previousY, 0, size);
+        System.arraycopy(rotation, 0, previousRotation, 0, size);
+        for (int i = 0; i < size; i++) {
+            hasPrevious[i] = true;
+        }
+        
+        for (int i = 0; i < size; i++) {
+            speedX[i] += gravityX[i] * delta;
+            speedY[i] += gravityY[i] * delta;
+            x[i] += speedX[i] * delta;
+            y[i] += speedY[i] * delta;
+        }
+        
+        for (int i = 0; i < size; i++) {
+            boxX[i] = x[i] + boxOffsetX[i];
+            boxY[i] = y[i] + boxOffsetY[i];
+        }
+    }
+    
+    /**
+     * @param slot
+     * @param other
+     * @param shiftX added to the other box, to test it across a world edge
+     * @param shiftY
+     * @return whether the boxes overlap
+     */
+    public boolean overlaps(int slot, int other, float shiftX, float shiftY) {
+        float otherX = boxX[other] + shiftX;
+        float otherY = boxY[other] + shiftY;
+        return boxX[slot] < otherX + boxWidth[other] && boxX[slot] + boxWidth[slot] > otherX
+                && boxY[slot] < otherY + boxHeight[other] && boxY[slot] + boxHeight[slot] > otherY;
+    }
+    
+    public Entity getOwner(int slot) {
+        return owners[slot];
+    }
+
+    public int getSize() {
+        return size;
+    }
+    
+    private void resize(int capacity) {
+        x = copyOf(x, capacity);
+        y = copyOf(y, capacity);
+        speedX = copyOf(speedX, capacity);
+        speedY = copyOf(speedY, capacity);
+        gravityX = copyOf(gravityX, capacity);
+        gravityY = copyOf(gravityY, capacity);
+        offsetX = copyOf(offsetX, capacity);
+        offsetY = copyOf(offsetY, capacity);
+        scaleX = copyOf(scaleX, capacity);
+        scaleY = copyOf(scaleY, capacity);
+        rotation = copyOf(rotation, capacity);
+        previousX = copyOf(previousX, capacity);
+        previousY = copyOf(previousY, capacity);
+        previousRotation = copyOf(previousRotation, capacity);
+        
+        boolean[] newHasPrevious = new boolean[capacity];
+        if (hasPrevious != null) {
+            System.arraycopy(hasPrevious, 0, newHasPrevious, 0, size);
+        }
+        hasPrevious = newHasPrevious;
+        boxX = copyOf(boxX, capacity);
+        boxY = copyOf(boxY, capacity);
+        boxOffsetX = copyOf(boxOffsetX, capacity);
+        boxOffsetY = copyOf(boxOffsetY, capacity);
+        boxWidth = copyOf(boxWidth, capacity);
+        boxHeight = copyOf(boxHeight, capacity);
+        
+        Entity[] newOwners = new Entity[capacity];
+        if (owners != null) {
+            System.arraycopy(owners, 0, newOwners, 0, size);
+        }
+        owners = newOwners;
+    }
+    
+    private float[] copyOf(float[] array, int capacity) {
+        float[] newArray = new float[capacity];
+        if (array != null) {
+            System.arraycopy(array, 0, newArray, 0, size);
+        }
+        return newArray;
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.audio;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/**
+ * Plays the sounds listed in sounds.json by int id. Requests made during a
+ * tick are queued, a repeat of a sound inside its coalescing window is
+ * dropped, and the queue is submitted once per frame in priority order.
+ * Each sound may only hold so many voices, and when every voice is busy a
+ * request steals the oldest voice of equal or lower priority.
+ * <p>
+ * An entry in sounds.json is either a file name or an object with "file",
+ * and optionally "priority", "voices" and "window" in seconds. The sounds
+ * are decoded lazily by a {@link SoundBank}, which is given one prefetch per
+ * frame in which nothing was submitted.
+ * @author Raymond
+ */
+public class AudioManager implements Disposable {
+    public static final int NONE = -1;
+    public static final int DEFAULT_MAX_VOICES = 16;
+    public static final float DEFAULT_WINDOW = .05f;
+    private final ObjectIntMap<String> ids;
+    private final SoundBank soundBank;
+    private int[] priorities;
+    private int[] voiceLimits;
+    private float[] windows;
+    private float[] lastPlayed;
+    private boolean[] pending;
+    private int[] activeCounts;
+    private int pendingCount;
+    private int maxVoices;
+    private int[] voiceSounds;
+    private long[] voiceIds;
+    private float[] voiceStarts;
+    private float[] voiceEnds;
+    private int voiceCount;
+    private float time;
+
+    public AudioManager() {
+        ids = new ObjectIntMap<String>();
+        soundBank = new SoundBank();
+        priorities = new int[0];
+        voiceLimits = new int[0];
+        windows = new float[0];
+        lastPlayed = new float[0];
+        pending = new boolean[0];
+        activeCounts = new int[0];
+        setMaxVoices(DEFAULT_MAX_VOICES);
+    }
+    
+    /**
+     * Replaces the sound list. The sounds are registered but not decoded.
+     * @param json the "sounds" object of sounds.json
+     * @param folder the folder the file names are relative to
+     */
+    public void load(JsonValue json, FileHandle folder) {
+        stopAll();
+        ids.clear();
+        soundBank.clear();
+        
+        int count = json.size;
+        priorities = new int[count];
+        voiceLimits = new int[count];
+        windows = new float[count];
+        lastPlayed = new float[count];
+        pending = new boolean[count];
+        activeCounts = new int[count];
+        
+        int id = 0;
+        for (JsonValue val = json.child; val != null; val = val.next) {
+            String fileName;
+            if (val.isString()) {
+                fileName = val.asString();
+                priorities[id] = 0;
+                voiceLimits[id] = maxVoices;
+                windows[id] = DEFAULT_WINDOW;
+            } else {
+                fileName = val.getString("file");
+                priorities[id] = val.getInt("priority", 0);
+                voiceLimits[id] = val.getInt("voices", maxVoices);
+                windows[id] = val.getFloat("window", DEFAULT_WINDOW);
+            }
+            
+            soundBank.register(folder.child(fileName));
+            lastPlayed[id] = Float.NEGATIVE_INFINITY;
+            ids.put(val.name, id);
+            id++;
+        }
+    }
+    
+    /**
+     * @param name the name of the sound in sounds.json
+     * @return the id of the sound, or {@link #NONE} if there is none
+     */
+    public int getId(String name) {
+        return ids.get(name, NONE);
+    }
+    
+    public int getSoundCount() {
+        return soundBank.getSoundCount();
+    }
+    
+    /**
+     * Queues the sound to be played at the next {@link #update(float)}.
+     * Dropped if it is already queued or played within its window.
+     * @param id
+     */
+    public void play(int id) {
+        if (id < 0 || id >= soundBank.getSoundCount() || pending[id] || time - lastPlayed[id] < windows[id]) {
+            return;
+        }
+        
+        pending[id] = true;
+        pendingCount++;
+    }
+    
+    /**
+     * Releases finished voices and submits the queued sounds.
+     * @param delta the time since the last update
+     */
+    public void update(float delta) {
+        time += delta;
+        
+        for (int i = voiceCount - 1; i >= 0; i--) {
+            if (voiceEnds[i] <= time) {
+                removeVoice(i);
+            }
+        }
+        
+        if (pendingCount == 0) {
+            soundBank.prefetch();
+        }
+        
+        while (pendingCount > 0) {
+            int next = NONE;
+            for (int id = 0; id < pending.length; id++) {
+                if (pending[id] && (next == NONE || priorities[id] > priorities[next])) {
+                    next = id;
+                }
+            }
+            pending[next] = false;
+            pendingCount--;
+            submit(next);
+        }
+    }
+    
+    private void submit(int id) {
+        if (activeCounts[id] >= voiceLimits[id]) {
+            int oldest = NONE;
+            for (int i = 0; i < voiceCount; i++) {
+                if (voiceSounds[i] == id && (oldest == NONE || voiceStarts[i] < voiceStarts[oldest])) {
+                    oldest = i;
+                }
+            }
+            if (oldest == NONE) {
+                return;
+            }
+            stopVoice(oldest);
+        } else if (voiceCount >= maxVoices) {
+            int victim = NONE;
+            for (int i = 0; i < voiceCount; i++) {
+                if (victim == NONE || priorities[voiceSounds[i]] < priorities[voiceSounds[victim]]
+                        || priorities[voiceSounds[i]] == priorities[voiceSounds[victim]] && voiceStarts[i] < voiceStarts[victim]) {
+                    victim = i;
+                }
+            }
+            if (victim == NONE || priorities[voiceSounds[victim]] > priorities[id]) {
+                return;
+            }
+            stopVoice(victim);
+        }
+        
+        lastPlayed[id] = time;
+        long voiceId = soundBank.get(id).play();
+        if (voiceId == -1) {
+            return;
+        }
+        
+        voiceSounds[voiceCount] = id;
+        voiceIds[voiceCount] = voiceId;
+        voiceStarts[voiceCount] = time;
+        voiceEnds[voiceCount] = time + soundBank.getDuration(id);
+        activeCounts[id]++;
+        soundBank.retain(id);
+        voiceCount++;
+    }
+    
+    private void stopVoice(int index) {
+        soundBank.get(voiceSounds[index]).stop(voiceIds[index]);
+        removeVoice(index);
+    }
+    
+    private void removeVoice(int index) {
+        activeCounts[voiceSounds[index]]--;
+        soundBank.release(voiceSounds[index]);
+        voiceCount--;
+        voiceSounds[index] = voiceSounds[voiceCount];
+        voiceIds[index] = voiceIds[voiceCount];
+        voiceStarts[index] = voiceStarts[voiceCount];
+        voiceEnds[index] = voiceEnds[voiceCount];
+    }
+    
+    /**
+     * Stops every playing voice and clears the queue.
+     */
+    public void stopAll() {
+        while (voiceCount > 0) {
+            stopVoice(voiceCount - 1);
+        }
+        for (int id = 0; id < pending.length; id++) {
+            pending[id] = false;
+        }
+        pendingCount = 0;
+    }
+    
+    public int getVoiceCount() {
+        return voiceCount;
+    }
+
+    public int getMaxVoices() {
+        return maxVoices;
+    }
+
+    /**
+     * @param maxVoices the number of sounds allowed to play at once
+     */
+    public void setMaxVoices(int maxVoices) {
+        stopAll();
+        this.maxVoices = maxVoices;
+        voiceSounds = new int[maxVoices];
+        voiceIds = new long[maxVoices];
+        voiceStarts = new float[maxVoices];
+        voiceEnds = new float[maxVoices];
+    }
+    
+    public SoundBank getSoundBank() {
+        return soundBank;
+    }
+    
+    @Override
+    public void dispose() {
+        stopAll();
+        soundBank.dispose();
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.audio;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongArray;
+import com.badlogic.gdx.utils.StreamUtils;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Holds the sound files by id and decodes each one the first time it is
+ * needed, or earlier through {@link #prefetch()}. The decoded sounds are
+ * kept within a memory budget; when a load goes over it, the least recently
+ * used sounds that are not playing are unloaded.
+ * @author Raymond
+ */
+public class SoundBank implements Disposable {
+    public static final long DEFAULT_BUDGET = 8L * 1024L * 1024L;
+    private static final int HEADER_SIZE = 4096;
+    private static final float UNKNOWN_DURATION = 1.0f;
+    //compressed files decode to roughly ten times their size
+    private static final int COMPRESSION_RATIO = 10;
+    private final Array<FileHandle> files;
+    private final Array<Sound> sounds;
+    private final FloatArray durations;
+    private final LongArray sizes;
+    private final LongArray lastUsed;
+    private final IntArray retained;
+    private long budget;
+    private long loadedBytes;
+    private long useCount;
+    private int nextPrefetch;
+
+    public SoundBank() {
+        files = new Array<FileHandle>();
+        sounds = new Array<Sound>();
+        durations = new FloatArray();
+        sizes = new LongArray();
+        lastUsed = new LongArray();
+        retained = new IntArray();
+        budget = DEFAULT_BUDGET;
+    }
+    
+    /**
+     * Adds a sound without decoding it. Only the header is read, for the
+     * duration and decoded size.
+     * @param file
+     * @return the id of the sound
+     */
+    public int register(FileHandle file) {
+        files.add(file);
+        sounds.add(null);
+        lastUsed.add(0);
+        retained.add(0);
+        readHeader(file);
+        return files.size - 1;
+    }
+    
+    /**
+     * @param id
+     * @return the sound, decoded now if it is not loaded
+     */
+    public Sound get(int id) {
+        Sound sound = sounds.get(id);
+        if (sound == null) {
+            sound = load(id);
+        }
+        lastUsed.set(id, ++useCount);
+        return sound;
+    }
+    
+    public boolean isLoaded(int id) {
+        return sounds.get(id) != null;
+    }
+    
+    /**
+     * Decodes the next sound that is not loaded yet, if it fits in the budget.
+     * Meant for frames with time to spare.
+     * @return true if a sound was loaded
+     */
+    public boolean prefetch() {
+        while (nextPrefetch < files.size) {
+            int id = nextPrefetch++;
+            if (sounds.get(id) == null && loadedBytes + sizes.get(id) <= budget) {
+                load(id);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private Sound load(int id) {
+        Sound sound = Gdx.audio.newSound(files.get(id));
+        sounds.set(id, sound);
+        loadedBytes += sizes.get(id);
+        trim(id);
+        return sound;
+    }
+    
+    /**
+     * Unloads least recently used sounds until the loaded ones fit the budget.
+     * @param keep a sound that must stay loaded
+     */
+    private void trim(int keep) {
+        while (loadedBytes > budget) {
+            int oldest = -1;
+            for (int id = 0; id < sounds.size; id++) {
+                if (id != keep && sounds.get(id) != null && retained.get(id) == 0 && (oldest == -1 || lastUsed.get(id) < lastUsed.get(oldest))) {
+                    oldest = id;
+                }
+            }
+            if (oldest == -1) {
+                return;
+            }
+            unload(oldest);
+        }
+    }
+    
+    public void unload(int id) {
+        Sound sound = sounds.get(id);
+        if (sound != null) {
+            sound.dispose();
+            sounds.set(id, null);
+            loadedBytes -= sizes.get(id);
+            //an unloaded sound may be prefetched again
+            nextPrefetch = Math.min(nextPrefetch, id);
+        }
+    }
+    
+    /**
+     * Keeps the sound loaded while a voice plays it.
+     * @param id
+     */
+    public void retain(int id) {
+        retained.incr(id, 1);
+    }
+    
+    public void release(int id) {
+        retained.incr(id, -1);
+    }
+    
+    /**
+     * Unloads every sound and forgets the files.
+     */
+    public void clear() {
+        for (int id = 0; id < sounds.size; id++) {
+            unload(id);
+        }
+        files.clear();
+        sounds.clear();
+        durations.clear();
+        sizes.clear();
+        lastUsed.clear();
+        retained.clear();
+        loadedBytes = 0;
+        nextPrefetch = 0;
+    }
+    
+    public float getDuration(int id) {
+        return durations.get(id);
+    }
+    
+    public long getSize(int id) {
+        return sizes.get(id);
+    }
+    
+    public int getSoundCount() {
+        return files.size;
+    }
+
+    public long getLoadedBytes() {
+        return loadedBytes;
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * @param budget the decoded bytes to keep loaded at most. A sound larger
+     * than the budget is still loaded while it is in use.
+     */
+    public void setBudget(long budget) {
+        this.budget = budget;
+        trim(-1);
+    }
+    
+    @Override
+    public void dispose() {
+        clear();
+    }
+    
+    /**
+     * Reads the duration and decoded size of a PCM wav file from its header.
+     * Other formats get {@link #UNKNOWN_DURATION} and an estimate from the
+     * file size.
+     * @param file
+     */
+    private void readHeader(FileHandle file) {
+        float duration = UNKNOWN_DURATION;
+        long size = file.length() * COMPRESSION_RATIO;
+        
+        if (file.extension().equalsIgnoreCase("wav")) {
+            byte[] bytes = readStart(file);
+            if (bytes.length >= 12 && "RIFF".equals(new String(bytes, 0, 4)) && "WAVE".equals(new String(bytes, 8, 4))) {
+                int byteRate = 0;
+                int position = 12;
+                while (position + 8 <= bytes.length) {
+                    String chunk = new String(bytes, position, 4);
+                    long chunkSize = readInt(bytes, position + 4) & 0xFFFFFFFFL;
+                    if (chunk.equals("fmt ") && position + 20 <= bytes.length) {
+                        byteRate = readInt(bytes, position + 16);
+                    } else if (chunk.equals("data")) {
+                        chunkSize = Math.min(chunkSize, file.length() - position - 8);
+                        if (byteRate > 0) {
+                            duration = (float) chunkSize / byteRate;
+                            size = chunkSize;
+                        }
+                        break;
+                    }
+                    if (position + 8 + chunkSize >= bytes.length) {
+                        break;
+                    }
+                    position += 8 + (int) chunkSize + (int) (chunkSize & 1);
+                }
+            }
+        }
+        
+        durations.add(duration);
+        sizes.add(size);
+    }
+    
+    private static byte[] readStart(FileHandle file) {
+        InputStream input = null;
+        try {
+            input = file.read();
+            byte[] buffer = new byte[HEADER_SIZE];
+            int length = 0;
+            int read;
+            while (length < buffer.length && (read = input.read(buffer, length, buffer.length - length)) != -1) {
+                length += read;
+            }
+            byte[] bytes = new byte[length];
+            System.arraycopy(buffer, 0, bytes, 0, length);
+            return bytes;
+        } catch (IOException e) {
+            return new byte[0];
+        } finally {
+            StreamUtils.closeQuietly(input);
+        }
+    }
+    
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8 | (bytes[offset + 2] & 0xFF) << 16 | (bytes[offset + 3] & 0xFF) << 24;
+    }
+}
@@ -0,0 +1,686 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.ecs;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntityListener;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.core.PooledEngine;
+import com.badlogic.ashley.utils.ImmutableArray;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.ray3k.impactors.Core;
+import com.ray3k.impactors.RenderQueue;
+import static com.ray3k.impactors.Core.DATA_PATH;
+import com.ray3k.impactors.ecs.components.AlienComponent;
+import com.ray3k.impactors.ecs.components.AsteroidComponent;
+import com.ray3k.impactors.ecs.components.BulletComponent;
+import com.ray3k.impactors.ecs.components.ColliderComponent;
+import com.ray3k.impactors.ecs.components.GameOverComponent;
+import com.ray3k.impactors.ecs.components.LifetimeComponent;
+import com.ray3k.impactors.ecs.components.PlayerComponent;
+import com.ray3k.impactors.ecs.components.SpriteComponent;
+import com.ray3k.impactors.ecs.components.TransformComponent;
+import com.ray3k.impactors.ecs.components.VelocityComponent;
+import com.ray3k.impactors.ecs.components.WrapComponent;
+import com.ray3k.impactors.ecs.systems.AlienSystem;
+import com.ray3k.impactors.ecs.systems.CollisionSystem;
+import com.ray3k.impactors.ecs.systems.GameOverSystem;
+import com.ray3k.impactors.ecs.systems.LifetimeSystem;
+import com.ray3k.impactors.ecs.systems.MovementSystem;
+import com.ray3k.impactors.ecs.systems.PlayerSystem;
+import com.ray3k.impactors.ecs.systems.RenderSystem;
+import com.ray3k.impactors.ecs.systems.WrapSystem;
+import com.ray3k.impactors.entities.AlienEntity;
+import com.ray3k.impactors.entities.AsteroidEntity;
+import com.ray3k.impactors.entities.BulletEntity;
+import com.ray3k.impactors.entities.CollisionCategories;
+import com.ray3k.impactors.entities.DustEntity;
+import com.ray3k.impactors.entities.EntityTypes;
+import com.ray3k.impactors.entities.GameOverTimerEntity;
+import com.ray3k.impactors.entities.PlayerEntity;
+import com.ray3k.impactors.entities.WhiteFlashEntity;
+import com.ray3k.impactors.states.GameState;
+
+/**
+ * Runs the game on an Ashley engine as an alternative to
+ * {@link com.ray3k.impactors.EntityManager}. Entities are bundles of pooled
+ * components and all behavior lives in systems that run once per tick in this
+ * order: movement, player, aliens, wrapping, lifetimes, game over and
+ * collisions. Drawing is left to the render system. Destruction side effects
+ * are applied by {@link #destroy(Entity)} based on which components the entity
+ * carries.
+ * <p>
+ * Ashley keeps its entity and family arrays unordered, so the world keeps its
+ * own update order like the entity manager's list: entities are appended as
+ * they are added and keep their place until removed. Entities created while
+ * the engine updates only join it once the tick has finished, in the order
+ * they were created. Aliens, collisions and the checksum go by this order, so
+ * a game plays out the same on both engines.
+ * @author Raymond
+ */
+public class EcsWorld {
+    private static final float ASTEROID_MIN_SPEED = 50.0f;
+    private static final float ASTEROID_MAX_SPEED = 150.0f;
+    private static final float ASTEROID_MIN_ROTATION_SPEED = 25.0f;
+    private static final float ASTEROID_MAX_ROTATION_SPEED = 100.0f;
+    private static final float ALIEN_MIN_SPEED = 50.0f;
+    private static final float ALIEN_MAX_SPEED = 150.0f;
+    private static final float SPAWN_KILL_ZONE = 50.0f;
+    private static final float DUST_MIN_SPEED = 15.0f;
+    private static final float DUST_MAX_SPEED = 100.0f;
+    private static final float DUST_LIFE_MIN = .25f;
+    private static final float DUST_LIFE_MAX = 1.0f;
+    private static final float FLASH_LIFE = .3f;
+    private static final float GAME_OVER_DELAY = 1.0f;
+    /**
+     * Ashley caps its pools at 100 by default, dropping what a large wave's
+     * prewarm frees. Like the entity manager's pools these are unbounded.
+     */
+    private static final int POOL_MAX = Integer.MAX_VALUE;
+    private final GameState gameState;
+    private final Core core;
+    private final PooledEngine engine;
+    private final PlayerSystem playerSystem;
+    private final CollisionSystem collisionSystem;
+    private final RenderSystem renderSystem;
+    private final ComponentMapper<TransformComponent> transformMapper = ComponentMapper.getFor(TransformComponent.class);
+    private final ComponentMapper<VelocityComponent> velocityMapper = ComponentMapper.getFor(VelocityComponent.class);
+    private final ComponentMapper<AsteroidComponent> asteroidMapper = ComponentMapper.getFor(AsteroidComponent.class);
+    private final ComponentMapper<AlienComponent> alienMapper = ComponentMapper.getFor(AlienComponent.class);
+    private final ComponentMapper<PlayerComponent> playerMapper = ComponentMapper.getFor(PlayerComponent.class);
+    private final ComponentMapper<BulletComponent> bulletMapper = ComponentMapper.getFor(BulletComponent.class);
+    private final ComponentMapper<GameOverComponent> gameOverMapper = ComponentMapper.getFor(GameOverComponent.class);
+    private final ComponentMapper<SpriteComponent> spriteMapper = ComponentMapper.getFor(SpriteComponent.class);
+    private final ImmutableArray<Entity> asteroids;
+    private final ImmutableArray<Entity> players;
+    private final Array<Entity> entities;
+    private final ImmutableArray<Entity> immutableEntities;
+    private final Array<Entity> pendingAdds;
+    private boolean ticking;
+    private final Array<Entity> doomed;
+    private final Array<Entity> prewarmed;
+    private float worldWidth;
+    private float worldHeight;
+    private int nextId;
+    private final int explosionSound;
+    private final int gameOverSound;
+    private final int ufoSound;
+
+    public EcsWorld(GameState gameState) {
+        this.gameState = gameState;
+        explosionSound = gameState.getAudioManager().getId("explosion");
+        gameOverSound = gameState.getAudioManager().getId("game-over");
+        ufoSound = gameState.getAudioManager().getId("ufo");
+        core = gameState.getCore();
+        engine = new PooledEngine(10, POOL_MAX, 10, POOL_MAX);
+        entities = new Array<Entity>();
+        immutableEntities = new ImmutableArray<Entity>(entities);
+        pendingAdds = new Array<Entity>();
+        doomed = new Array<Entity>();
+        prewarmed = new Array<Entity>();
+        
+        engine.addEntityListener(new EntityListener() {
+            @Override
+            public void entityAdded(Entity entity) {
+                entities.add(entity);
+            }
+
+            @Override
+            public void entityRemoved(Entity entity) {
+                entities.removeValue(entity, true);
+            }
+        });
+        
+        engine.addSystem(new MovementSystem(0));
+        playerSystem = new PlayerSystem(this, 1);
+        engine.addSystem(playerSystem);
+        engine.addSystem(new AlienSystem(this, 2));
+        engine.addSystem(new WrapSystem(this, 3));
+        engine.addSystem(new LifetimeSystem(this, 4));
+        engine.addSystem(new GameOverSystem(this, 5));
+        collisionSystem = new CollisionSystem(this, 6);
+        engine.addSystem(collisionSystem);
+        renderSystem = new RenderSystem(this);
+        engine.addSystem(renderSystem);
+        
+        asteroids = engine.getEntitiesFor(Family.all(AsteroidComponent.class, TransformComponent.class).get());
+        players = engine.getEntitiesFor(Family.all(PlayerComponent.class, TransformComponent.class).get());
+        
+        registerContactHandlers();
+    }
+    
+    private void registerContactHandlers() {
+        collisionSystem.register(EntityTypes.ASTEROID, EntityTypes.BULLET, new ContactHandler() {
+            @Override
+            public void contact(Entity asteroid, Entity bullet) {
+                destroy(bullet);
+                destroy(asteroid);
+                gameState.awardScore(10);
+                gameState.requestSound(explosionSound);
+            }
+        });
+        
+        collisionSystem.register(EntityTypes.ALIEN, EntityTypes.BULLET, new ContactHandler() {
+            @Override
+            public void contact(Entity alien, Entity bullet) {
+                if (bulletMapper.get(bullet).ownerId != alienMapper.get(alien).id) {
+                    destroy(bullet);
+                    destroy(alien);
+                    gameState.awardScore(10);
+                    gameState.requestSound(explosionSound);
+                }
+            }
+        });
+        
+        collisionSystem.register(EntityTypes.ALIEN, EntityTypes.ASTEROID, new ContactHandler() {
+            @Override
+            public void contact(Entity alien, Entity asteroid) {
+                destroy(alien);
+                destroy(asteroid);
+            }
+        });
+        
+        collisionSystem.register(EntityTypes.PLAYER, EntityTypes.BULLET, new ContactHandler() {
+            @Override
+            public void contact(Entity player, Entity bullet) {
+                if (bulletMapper.get(bullet).ownerId != playerMapper.get(player).id) {
+                    destroy(bullet);
+                    destroy(player);
+                }
+            }
+        });
+        
+        ContactHandler playerEnemyHandler = new ContactHandler() {
+            @Override
+            public void contact(Entity player, Entity enemy) {
+                destroy(enemy);
+                destroy(player);
+            }
+        };
+        collisionSystem.register(EntityTypes.PLAYER, EntityTypes.ASTEROID, playerEnemyHandler);
+        collisionSystem.register(EntityTypes.PLAYER, EntityTypes.ALIEN, playerEnemyHandler);
+    }
+    
+    public void act(float delta) {
+        ticking = true;
+        engine.update(delta);
+        ticking = false;
+        
+        for (int i = 0; i < pendingAdds.size; i++) {
+            engine.addEntity(pendingAdds.get(i));
+        }
+        pendingAdds.clear();
+    }
+    
+    /**
+     * Adds the entity to the engine, or once the tick has finished if the
+     * engine is updating.
+     * @param entity 
+     */
+    private void add(Entity entity) {
+        if (ticking) {
+            pendingAdds.add(entity);
+        } else {
+            engine.addEntity(entity);
+        }
+    }
+    
+    public void draw(SpriteBatch spriteBatch, float alpha) {
+        renderSystem.draw(spriteBatch, alpha);
+    }
+    
+    public void record(RenderQueue queue, float alpha) {
+        renderSystem.record(queue, alpha);
+    }
+    
+    public RenderQueue getRenderQueue() {
+        return renderSystem.getRenderQueue();
+    }
+    
+    public void dispose() {
+        gameState.getInputManager().removeKeyActionListener(playerSystem);
+        engine.removeAllEntities();
+        engine.clearPools();
+    }
+    
+    public Entity createPlayer(float x, float y) {
+        Entity entity = engine.createEntity();
+        
+        PlayerComponent player = engine.createComponent(PlayerComponent.class);
+        player.id = ++nextId;
+        player.bulletTimer = -1.0f;
+        player.playerRegion = findRegion(DATA_PATH + "/players");
+        player.thrustRegion = findRegion(DATA_PATH + "/players-thrust");
+        entity.add(player);
+        
+        TransformComponent transform = createTransform(entity, x, y);
+        transform.offsetX = player.playerRegion.getRegionWidth() / 2.0f;
+        transform.offsetY = player.playerRegion.getRegionHeight() / 2.0f;
+        
+        entity.add(engine.createComponent(VelocityComponent.class));
+        createSprite(entity, player.playerRegion);
+        entity.add(engine.createComponent(WrapComponent.class));
+        
+        ColliderComponent collider = createCollider(entity, EntityTypes.PLAYER, CollisionCategories.PLAYER, CollisionCategories.BULLET | CollisionCategories.ASTEROID | CollisionCategories.ALIEN);
+        collider.width = player.playerRegion.getRegionWidth() / 2.0f;
+        collider.height = player.playerRegion.getRegionHeight() / 2.0f;
+        collider.offsetX = player.playerRegion.getRegionWidth() / 4.0f;
+        collider.offsetY = player.playerRegion.getRegionHeight() / 4.0f;
+        collider.boxX = x + collider.offsetX;
+        collider.boxY = y + collider.offsetY;
+        
+        add(entity);
+        return entity;
+    }
+    
+    public Entity createAsteroid(AsteroidEntity.Type type, float x, float y) {
+        Entity entity = engine.createEntity();
+        
+        AsteroidComponent asteroid = engine.createComponent(AsteroidComponent.class);
+        asteroid.type = type;
+        entity.add(asteroid);
+        
+        TextureRegion region;
+        if (type == AsteroidEntity.Type.LARGE) {
+            region = findRegion(DATA_PATH + "/asteroids");
+        } else if (type == AsteroidEntity.Type.MEDIUM) {
+            region = findRegion(DATA_PATH + "/asteroids-m");
+        } else {
+            region = findRegion(DATA_PATH + "/asteroids-s");
+        }
+        
+        TransformComponent transform = createTransform(entity, x, y);
+        transform.offsetX = region.getRegionWidth() / 2.0f;
+        transform.offsetY = region.getRegionHeight() / 2.0f;
+        
+        VelocityComponent velocity = engine.createComponent(VelocityComponent.class);
+        velocity.setMotion(gameState.random(ASTEROID_MIN_SPEED, ASTEROID_MAX_SPEED), gameState.random(360.0f));
+        velocity.rotationSpeed = gameState.randomSign() * gameState.random(ASTEROID_MIN_ROTATION_SPEED, ASTEROID_MAX_ROTATION_SPEED);
+        entity.add(velocity);
+        
+        createSprite(entity, region);
+        entity.add(engine.createComponent(WrapComponent.class));
+        createRegionCollider(entity, region, EntityTypes.ASTEROID, CollisionCategories.ASTEROID, CollisionCategories.BULLET, x, y);
+        
+        add(entity);
+        return entity;
+    }
+    
+    /**
+     * Adds an alien and removes asteroids too close to it without splitting
+     * them.
+     * @param x
+     * @param y
+     * @return 
+     */
+    public Entity createAlien(float x, float y) {
+        Entity entity = engine.createEntity();
+        TextureRegion region = findRegion(DATA_PATH + "/enemies");
+        
+        TransformComponent transform = createTransform(entity, x, y);
+        transform.offsetX = region.getRegionWidth() / 2.0f;
+        transform.offsetY = region.getRegionHeight() / 2.0f;
+        
+        VelocityComponent velocity = engine.createComponent(VelocityComponent.class);
+        velocity.setMotion(gameState.random(ALIEN_MIN_SPEED, ALIEN_MAX_SPEED), gameState.random(360.0f));
+        entity.add(velocity);
+        
+        createSprite(entity, region);
+        entity.add(engine.createComponent(WrapComponent.class));
+        createRegionCollider(entity, region, EntityTypes.ALIEN, CollisionCategories.ALIEN, CollisionCategories.BULLET | CollisionCategories.ASTEROID, x, y);
+        
+        AlienComponent alien = engine.createComponent(AlienComponent.class);
+        alien.id = ++nextId;
+        alien.bulletTimer = AlienSystem.FIRING_RATE;
+        entity.add(alien);
+        
+        add(entity);
+        gameState.requestSound(ufoSound);
+        
+        for (int i = 0; i < entities.size; i++) {
+            Entity asteroid = entities.get(i);
+            TransformComponent asteroidTransform = transformMapper.get(asteroid);
+            if (asteroidMapper.has(asteroid) && Vector2.dst2(x, y, asteroidTransform.x, asteroidTransform.y) < SPAWN_KILL_ZONE * SPAWN_KILL_ZONE) {
+                asteroidMapper.get(asteroid).spawnChildren = false;
+                doomed.add(asteroid);
+            }
+        }
+        for (Entity asteroid : doomed) {
+            destroy(asteroid);
+        }
+        doomed.clear();
+        
+        return entity;
+    }
+    
+    public Entity createBullet(int ownerId, float x, float y, float life) {
+        Entity entity = engine.createEntity();
+        TextureRegion region = findRegion(DATA_PATH + "/bullets");
+        
+        createTransform(entity, x, y);
+        entity.add(engine.createComponent(VelocityComponent.class));
+        createSprite(entity, region);
+        entity.add(engine.createComponent(WrapComponent.class));
+        
+        ColliderComponent collider = createRegionCollider(entity, region, EntityTypes.BULLET, CollisionCategories.BULLET, 0, x, y);
+        collider.fast = true;
+        
+        LifetimeComponent lifetime = engine.createComponent(LifetimeComponent.class);
+        lifetime.set(life);
+        entity.add(lifetime);
+        
+        BulletComponent bullet = engine.createComponent(BulletComponent.class);
+        bullet.ownerId = ownerId;
+        entity.add(bullet);
+        
+        add(entity);
+        return entity;
+    }
+    
+    public Entity createDust(float x, float y) {
+        Entity entity = engine.createEntity();
+        
+        createTransform(entity, x, y);
+        createSprite(entity, findRegion(DATA_PATH + "/dusts"));
+        
+        LifetimeComponent lifetime = engine.createComponent(LifetimeComponent.class);
+        lifetime.set(gameState.random(DUST_LIFE_MIN, DUST_LIFE_MAX));
+        entity.add(lifetime);
+        
+        VelocityComponent velocity = engine.createComponent(VelocityComponent.class);
+        velocity.setMotion(gameState.random(DUST_MIN_SPEED, DUST_MAX_SPEED), gameState.random(360.0f));
+        entity.add(velocity);
+        
+        add(entity);
+        return entity;
+    }
+    
+    private void createFlash() {
+        Entity entity = engine.createEntity();
+        
+        createTransform(entity, 0.0f, 0.0f);
+        SpriteComponent sprite = createSprite(entity, core.getAtlas().findRegion("white"));
+        sprite.depth = -1000;
+        sprite.fullScreen = true;
+        sprite.fading = true;
+        
+        LifetimeComponent lifetime = engine.createComponent(LifetimeComponent.class);
+        lifetime.set(FLASH_LIFE);
+        entity.add(lifetime);
+        
+        add(entity);
+    }
+    
+    private void createGameOverTimer(float time) {
+        Entity entity = engine.createEntity();
+        
+        GameOverComponent gameOver = engine.createComponent(GameOverComponent.class);
+        gameOver.time = time;
+        entity.add(gameOver);
+        
+        add(entity);
+    }
+    
+    private TransformComponent createTransform(Entity entity, float x, float y) {
+        TransformComponent transform = engine.createComponent(TransformComponent.class);
+        transform.x = x;
+        transform.y = y;
+        entity.add(transform);
+        return transform;
+    }
+    
+    private SpriteComponent createSprite(Entity entity, TextureRegion region) {
+        SpriteComponent sprite = engine.createComponent(SpriteComponent.class);
+        sprite.region = region;
+        entity.add(sprite);
+        return sprite;
+    }
+    
+    private ColliderComponent createCollider(Entity entity, int typeId, int category, int mask) {
+        ColliderComponent collider = engine.createComponent(ColliderComponent.class);
+        collider.typeId = typeId;
+        collider.category = category;
+        collider.mask = mask;
+        entity.add(collider);
+        return collider;
+    }
+    
+    private ColliderComponent createRegionCollider(Entity entity, TextureRegion region, int typeId, int category, int mask, float x, float y) {
+        ColliderComponent collider = createCollider(entity, typeId, category, mask);
+        collider.width = region.getRegionWidth();
+        collider.height = region.getRegionHeight();
+        collider.boxX = x;
+        collider.boxY = y;
+        return collider;
+    }
+    
+    /**
+     * Fills the engine's entity and component pools with enough asteroids,
+     * dust and bullets that spawning them does not allocate. The entities
+     * are added and removed again right away, consuming no randomness.
+     * @param asteroidCount
+     * @param dustCount
+     * @param bulletCount 
+     */
+    public void prewarm(int asteroidCount, int dustCount, int bulletCount) {
+        int total = asteroidCount + dustCount + bulletCount;
+        for (int i = 0; i < total; i++) {
+            Entity entity = engine.createEntity();
+            entity.add(engine.createComponent(TransformComponent.class));
+            entity.add(engine.createComponent(VelocityComponent.class));
+            entity.add(engine.createComponent(SpriteComponent.class));
+            
+            if (i < asteroidCount) {
+                entity.add(engine.createComponent(AsteroidComponent.class));
+                entity.add(engine.createComponent(WrapComponent.class));
+                entity.add(engine.createComponent(ColliderComponent.class));
+            } else if (i < asteroidCount + bulletCount) {
+                entity.add(engine.createComponent(BulletComponent.class));
+                entity.add(engine.createComponent(WrapComponent.class));
+                entity.add(engine.createComponent(ColliderComponent.class));
+                entity.add(engine.createComponent(LifetimeComponent.class));
+            } else {
+                entity.add(engine.createComponent(LifetimeComponent.class));
+            }
+            
+            engine.addEntity(entity);
+            prewarmed.add(entity);
+        }
+        
+        for (int i = 0; i < prewarmed.size; i++) {
+            engine.removeEntity(prewarmed.get(i));
+        }
+        prewarmed.clear();
+    }
+    
+    private TextureRegion findRegion(String pack) {
+        Array<String> names = core.getImagePacks().get(pack);
+        
+        return core.getAtlas().findRegion(gameState.random(names));
+    }
+    
+    /**
+     * Removes the entity at the end of the current system, or right away
+     * outside of an update. Asteroids split or turn to dust, aliens turn to
+     * dust and the player ends the game.
+     * @param entity 
+     */
+    public void destroy(Entity entity) {
+        if (entity.isScheduledForRemoval()) {
+            return;
+        }
+        
+        TransformComponent transform = transformMapper.get(entity);
+        
+        AsteroidComponent asteroid = asteroidMapper.get(entity);
+        if (asteroid != null) {
+            gameState.reportDestroyed(AsteroidEntity.class, transform.x, transform.y);
+            if (asteroid.type == AsteroidEntity.Type.LARGE) {
+                if (asteroid.spawnChildren) {
+                    for (int i = 0; i < 3; i++) {
+                        createAsteroid(AsteroidEntity.Type.MEDIUM, transform.x, transform.y);
+                    }
+                }
+            } else if (asteroid.type == AsteroidEntity.Type.MEDIUM) {
+                if (asteroid.spawnChildren) {
+                    for (int i = 0; i < 3; i++) {
+                        createAsteroid(AsteroidEntity.Type.SMALL, transform.x, transform.y);
+                    }
+                }
+            } else {
+                createDusts(3, transform.x, transform.y);
+            }
+        } else if (alienMapper.has(entity)) {
+            gameState.reportDestroyed(AlienEntity.class, transform.x, transform.y);
+            createDusts(3, transform.x, transform.y);
+        } else if (playerMapper.has(entity)) {
+            gameState.reportDestroyed(PlayerEntity.class, transform.x, transform.y);
+            gameState.requestSound(explosionSound);
+            gameState.requestSound(gameOverSound);
+            createFlash();
+            createGameOverTimer(GAME_OVER_DELAY);
+        }
+        
+        engine.removeEntity(entity);
+    }
+    
+    private void createDusts(int number, float x, float y) {
+        for (int i = 0; i < number; i++) {
+            createDust(x, y);
+        }
+    }
+    
+    public Entity getPlayer() {
+        for (int i = 0; i < players.size(); i++) {
+            if (!players.get(i).isScheduledForRemoval()) {
+                return players.get(i);
+            }
+        }
+        return null;
+    }
+    
+    public boolean getPlayerPosition(Vector2 position) {
+        Entity player = getPlayer();
+        if (player != null) {
+            TransformComponent transform = transformMapper.get(player);
+            position.set(transform.x, transform.y);
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Adds the number of live entities to the given counts, keyed by the
+     * simple name of the entity class each one stands in for.
+     * @param counts 
+     */
+    public void census(ObjectIntMap<String> counts) {
+        for (int i = 0; i < entities.size; i++) {
+            Entity entity = entities.get(i);
+            if (!entity.isScheduledForRemoval()) {
+                counts.getAndIncrement(getCensusName(entity), 0, 1);
+            }
+        }
+    }
+    
+    /**
+     * Hashes the kind and position of every live entity in update order, the
+     * same way the entity manager does. Entities without a transform hash as
+     * if they sat at the origin, like the manager's timers.
+     * @return 
+     * @see com.ray3k.impactors.EntityManager#checksum()
+     */
+    public int checksum() {
+        int hash = 1;
+        for (int i = 0; i < entities.size; i++) {
+            Entity entity = entities.get(i);
+            if (!entity.isScheduledForRemoval()) {
+                hash = 31 * hash + getCensusName(entity).hashCode();
+                TransformComponent transform = transformMapper.get(entity);
+                hash = 31 * hash + Float.floatToIntBits(transform == null ? 0.0f : transform.x);
+                hash = 31 * hash + Float.floatToIntBits(transform == null ? 0.0f : transform.y);
+            }
+        }
+        return hash;
+    }
+    
+    private String getCensusName(Entity entity) {
+        if (asteroidMapper.has(entity)) {
+            return AsteroidEntity.class.getSimpleName();
+        } else if (alienMapper.has(entity)) {
+            return AlienEntity.class.getSimpleName();
+        } else if (playerMapper.has(entity)) {
+            return PlayerEntity.class.getSimpleName();
+        } else if (bulletMapper.has(entity)) {
+            return BulletEntity.class.getSimpleName();
+        } else if (gameOverMapper.has(entity)) {
+            return GameOverTimerEntity.class.getSimpleName();
+        } else if (spriteMapper.has(entity) && spriteMapper.get(entity).fullScreen) {
+            return WhiteFlashEntity.class.getSimpleName();
+        } else {
+            return DustEntity.class.getSimpleName();
+        }
+    }
+    
+    public int countAsteroids() {
+        return asteroids.size();
+    }
+    
+    public GameState getGameState() {
+        return gameState;
+    }
+    
+    public PooledEngine getEngine() {
+        return engine;
+    }
+    
+    /**
+     * @return the entities in the engine in update order, oldest first
+     */
+    public ImmutableArray<Entity> getEntities() {
+        return immutableEntities;
+    }
+
+    public CollisionSystem getCollisionSystem() {
+        return collisionSystem;
+    }
+
+    public void setWorldSize(float worldWidth, float worldHeight) {
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+    }
+
+    public float getWorldWidth() {
+        return worldWidth;
+    }
+
+    public float getWorldHeight() {
+        return worldHeight;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.ecs.components;
+
+import com.badlogic.ashley.core.Component;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Collision box relative to the transform, along with the type id and
+ * category bits used to pick a contact handler. The box position is refreshed
+ * by the movement system right after integration.
+ * @author Raymond
+ */
+public class ColliderComponent implements Component, Pool.Poolable {
+    public int typeId;
+    public int category = 1;
+    public int mask = ~0;
+    public float offsetX;
+    public float offsetY;
+    public float width;
+    public float height;
+    public float boxX;
+    public float boxY;
+    public boolean fast;
+
+    @Override
+    public void reset() {
+        typeId = 0;
+        category = 1;
+        mask = ~0;
+        offsetX = 0.0f;
+        offsetY = 0.0f;
+        width = 0.0f;
+        height = 0.0f;
+        boxX = 0.0f;
+        boxY = 0.0f;
+        fast = false;
+    }
+}
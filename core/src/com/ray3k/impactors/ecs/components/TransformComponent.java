@@ -0,0 +1,62 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.ecs.components;
+
+import com.badlogic.ashley.core.Component;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Position of the bottom left corner of the sprite, plus the origin used for
+ * rotation and scaling. The previous position and rotation are recorded by
+ * the movement system before each integration, for drawing between ticks.
+ * @author Raymond
+ */
+public class TransformComponent implements Component, Pool.Poolable {
+    public float x;
+    public float y;
+    public float offsetX;
+    public float offsetY;
+    public float scaleX = 1.0f;
+    public float scaleY = 1.0f;
+    public float rotation;
+    public float previousX;
+    public float previousY;
+    public float previousRotation;
+    public boolean hasPrevious;
+
+    @Override
+    public void reset() {
+        x = 0.0f;
+        y = 0.0f;
+        offsetX = 0.0f;
+        offsetY = 0.0f;
+        scaleX = 1.0f;
+        scaleY = 1.0f;
+        rotation = 0.0f;
+        previousX = 0.0f;
+        previousY = 0.0f;
+        previousRotation = 0.0f;
+        hasPrevious = false;
+    }
+}
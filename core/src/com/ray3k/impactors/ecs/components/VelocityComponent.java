@@ -0,0 +1,68 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.ecs.components;
+
+import com.badlogic.ashley.core.Component;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Linear speed in pixels per second and spin in degrees per second.
+ * @author Raymond
+ */
+public class VelocityComponent implements Component, Pool.Poolable {
+    private static final Vector2 temp = new Vector2();
+    public float speedX;
+    public float speedY;
+    public float rotationSpeed;
+    
+    public void setMotion(float speed, float direction) {
+        temp.set(speed, 0);
+        temp.rotate(direction);
+        speedX = temp.x;
+        speedY = temp.y;
+    }
+    
+    public void addMotion(float speed, float direction) {
+        temp.set(speed, 0);
+        temp.rotate(direction);
+        speedX += temp.x;
+        speedY += temp.y;
+    }
+    
+    public float getSpeed() {
+        return Vector2.len(speedX, speedY);
+    }
+    
+    public float getDirection() {
+        return temp.set(speedX, speedY).angle();
+    }
+
+    @Override
+    public void reset() {
+        speedX = 0.0f;
+        speedY = 0.0f;
+        rotationSpeed = 0.0f;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.ecs.systems;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntitySystem;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.utils.ImmutableArray;
+import com.badlogic.gdx.math.Vector2;
+import com.ray3k.impactors.ecs.EcsWorld;
+import com.ray3k.impactors.ecs.components.AlienComponent;
+import com.ray3k.impactors.ecs.components.AsteroidComponent;
+import com.ray3k.impactors.ecs.components.SpriteComponent;
+import com.ray3k.impactors.ecs.components.TransformComponent;
+import com.ray3k.impactors.ecs.components.VelocityComponent;
+import com.ray3k.impactors.ecs.components.WrapComponent;
+
+/**
+ * Changes alien headings every few seconds and fires at the nearest asteroid
+ * in range, or at the player when there is none. Aliens act in the world's
+ * update order and wrap before anything else, like
+ * {@link com.ray3k.impactors.entities.AlienEntity}. They see the entities
+ * ahead of them in that order where those will be once wrapped this tick,
+ * and the ones behind them where they are now, as the entity manager would.
+ * @author Raymond
+ */
+public class AlienSystem extends EntitySystem {
+    public static final float FIRING_RATE = 2.0f;
+    private static final float ASTEROID_KILL_RANGE = 100.0f;
+    private static final float BULLET_SPEED = 400.0f;
+    private static final float BULLET_DELAY = 1.0f;
+    private final ComponentMapper<AlienComponent> alienMapper = ComponentMapper.getFor(AlienComponent.class);
+    private final ComponentMapper<AsteroidComponent> asteroidMapper = ComponentMapper.getFor(AsteroidComponent.class);
+    private final ComponentMapper<TransformComponent> transformMapper = ComponentMapper.getFor(TransformComponent.class);
+    private final ComponentMapper<VelocityComponent> velocityMapper = ComponentMapper.getFor(VelocityComponent.class);
+    private final ComponentMapper<SpriteComponent> spriteMapper = ComponentMapper.getFor(SpriteComponent.class);
+    private final ComponentMapper<WrapComponent> wrapMapper = ComponentMapper.getFor(WrapComponent.class);
+    private final Family family;
+    private final EcsWorld world;
+    private final Vector2 seen;
+    private final Vector2 target;
+    private final int laserSound;
+
+    public AlienSystem(EcsWorld world, int priority) {
+        super(priority);
+        family = Family.all(AlienComponent.class, TransformComponent.class, VelocityComponent.class, SpriteComponent.class).get();
+        this.world = world;
+        seen = new Vector2();
+        target = new Vector2();
+        laserSound = world.getGameState().getAudioManager().getId("laser");
+    }
+
+    @Override
+    public void update(float delta) {
+        ImmutableArray<Entity> entities = world.getEntities();
+        for (int i = 0; i < entities.size(); i++) {
+            Entity entity = entities.get(i);
+            if (family.matches(entity) && !entity.isScheduledForRemoval()) {
+                processEntity(entity, i, delta);
+            }
+        }
+    }
+    
+    private void processEntity(Entity entity, int index, float delta) {
+        AlienComponent alien = alienMapper.get(entity);
+        TransformComponent transform = transformMapper.get(entity);
+        SpriteComponent sprite = spriteMapper.get(entity);
+        
+        transform.x = WrapSystem.wrap(transform.x, world.getWorldWidth());
+        transform.y = WrapSystem.wrap(transform.y, world.getWorldHeight());
+        
+        alien.bulletTimer -= delta;
+        if (alien.bulletTimer < 0) {
+            VelocityComponent velocity = velocityMapper.get(entity);
+            
+            alien.bulletTimer = FIRING_RATE;
+            velocity.setMotion(velocity.getSpeed(), world.getGameState().random(360.0f));
+            
+            Entity candidate = findNearestAsteroid(transform.x, transform.y, index);
+            
+            if (candidate == null) {
+                candidate = world.getPlayer();
+                if (candidate != null) {
+                    see(candidate, world.getEntities().indexOf(candidate, true) < index, target);
+                }
+            }
+            
+            if (candidate != null) {
+                world.getGameState().requestSound(laserSound);
+                alien.bulletTimer = BULLET_DELAY;
+                
+                Entity bullet = world.createBullet(alien.id, transform.x + sprite.region.getRegionWidth() / 2.0f, transform.y + sprite.region.getRegionHeight() / 2.0f, BULLET_DELAY);
+                VelocityComponent bulletVelocity = velocityMapper.get(bullet);
+                bulletVelocity.setMotion(BULLET_SPEED, (float) (Math.atan2(target.y - transform.y, target.x - transform.x) * 180.0f / Math.PI));
+                bulletVelocity.addMotion(velocity.getSpeed(), velocity.getDirection());
+            }
+        }
+    }
+    
+    /**
+     * @return the nearest asteroid closer than the kill range, with its
+     * position left in target, or null
+     */
+    private Entity findNearestAsteroid(float x, float y, int index) {
+        ImmutableArray<Entity> entities = world.getEntities();
+        Entity nearest = null;
+        float nearestDistance = ASTEROID_KILL_RANGE;
+        
+        for (int i = 0; i < entities.size(); i++) {
+            Entity asteroid = entities.get(i);
+            if (asteroidMapper.has(asteroid) && !asteroid.isScheduledForRemoval()) {
+                see(asteroid, i < index, seen);
+                float distance = Vector2.dst(x, y, seen.x, seen.y);
+                if (distance < nearestDistance) {
+                    nearest = asteroid;
+                    nearestDistance = distance;
+                    target.set(seen);
+                }
+            }
+        }
+        
+        return nearest;
+    }
+    
+    /**
+     * Sets out to the position of another entity as this alien sees it.
+     * @param other
+     * @param ahead whether other comes before this alien in update order
+     * @param out
+     * @return out
+     */
+    private Vector2 see(Entity other, boolean ahead, Vector2 out) {
+        TransformComponent transform = transformMapper.get(other);
+        if (ahead && wrapMapper.has(other)) {
+            return out.set(WrapSystem.wrap(transform.x, world.getWorldWidth()), WrapSystem.wrap(transform.y, world.getWorldHeight()));
+        }
+        return out.set(transform.x, transform.y);
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.ecs.systems;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntitySystem;
+import com.badlogic.ashley.utils.ImmutableArray;
+import com.badlogic.gdx.utils.LongArray;
+import com.ray3k.impactors.Sweep;
+import com.ray3k.impactors.ecs.ContactHandler;
+import com.ray3k.impactors.ecs.EcsWorld;
+import com.ray3k.impactors.ecs.components.ColliderComponent;
+import com.ray3k.impactors.ecs.components.VelocityComponent;
+
+/**
+ * Sort and sweep over collider boxes. Boxes are copied into flat arrays in
+ * the world's update order, sorted by their left edge and swept once, so the
+ * pair tests never touch the components. Every box is stretched back over the
+ * last tick's movement, so a fast collider is paired with anything it could
+ * have met on the way, and pairs with a fast collider are tested along their
+ * relative movement like they are in the entity manager. The world wraps, so
+ * a box hanging past the left or right edge is swept a second time at the
+ * opposite edge, and every pair is tested with the later box moved to its
+ * copy nearest the earlier one. Contacts are dispatched once each, in update
+ * order, earlier collider first, to the handler registered for their type
+ * ids, which is the order the entity manager dispatches them in.
+ * @author Raymond
+ */
+public class CollisionSystem extends EntitySystem {
+    public static final int MAX_TYPES = 32;
+    private final ComponentMapper<ColliderComponent> colliderMapper = ComponentMapper.getFor(ColliderComponent.class);
+    private final ComponentMapper<VelocityComponent> velocityMapper = ComponentMapper.getFor(VelocityComponent.class);
+    private final EcsWorld world;
+    private final ContactHandler[] handlers;
+    private final boolean[] swapped;
+    private Entity[] bodies;
+    private ColliderComponent[] colliders;
+    private int[] owners;
+    private float[] minX;
+    private float[] maxX;
+    private float[] speedX;
+    private float[] speedY;
+    private final LongArray order;
+    private final LongArray contacts;
+
+    public CollisionSystem(EcsWorld world, int priority) {
+        super(priority);
+        this.world = world;
+        handlers = new ContactHandler[MAX_TYPES * MAX_TYPES];
+        swapped = new boolean[MAX_TYPES * MAX_TYPES];
+        bodies = new Entity[64];
+        colliders = new ColliderComponent[64];
+        owners = new int[128];
+        minX = new float[128];
+        maxX = new float[128];
+        speedX = new float[64];
+        speedY = new float[64];
+        order = new LongArray();
+        contacts = new LongArray();
+    }
+    
+    public void register(int typeA, int typeB, ContactHandler handler) {
+        handlers[typeA * MAX_TYPES + typeB] = handler;
+        swapped[typeA * MAX_TYPES + typeB] = false;
+        handlers[typeB * MAX_TYPES + typeA] = handler;
+        swapped[typeB * MAX_TYPES + typeA] = typeA != typeB;
+    }
+    
+    public void unregister(int typeA, int typeB) {
+        handlers[typeA * MAX_TYPES + typeB] = null;
+        handlers[typeB * MAX_TYPES + typeA] = null;
+    }
+
+    @Override
+    public void update(float delta) {
+        ImmutableArray<Entity> entities = world.getEntities();
+        if (colliders.length < entities.size()) {
+            int capacity = Math.max(entities.size(), colliders.length * 2);
+            bodies = new Entity[capacity];
+            colliders = new ColliderComponent[capacity];
+            owners = new int[capacity * 2];
+            minX = new float[capacity * 2];
+            maxX = new float[capacity * 2];
+            speedX = new float[capacity];
+            speedY = new float[capacity];
+        }
+        
+        float worldWidth = world.getWorldWidth();
+        int count = 0;
+        int intervals = 0;
+        order.clear();
+        for (int i = 0; i < entities.size(); i++) {
+            Entity entity = entities.get(i);
+            ColliderComponent collider = colliderMapper.get(entity);
+            if (collider == null || entity.isScheduledForRemoval() || collider.category == 0 && collider.mask == 0) {
+                continue;
+            }
+            
+            int index = count++;
+            bodies[index] = entity;
+            colliders[index] = collider;
+            
+            VelocityComponent velocity = velocityMapper.get(entity);
+            speedX[index] = velocity == null ? 0.0f : velocity.speedX;
+            speedY[index] = velocity == null ? 0.0f : velocity.speedY;
+            
+            float moveX = speedX[index] * delta;
+            float left = Math.min(collider.boxX, collider.boxX - moveX);
+            float right = Math.max(collider.boxX, collider.boxX - moveX) + collider.width;
+            intervals = addInterval(intervals, index, left, right);
+            if (right > worldWidth) {
+                intervals = addInterval(intervals, index, left - worldWidth, right - worldWidth);
+            } else if (left < 0.0f) {
+                intervals = addInterval(intervals, index, left + worldWidth, right + worldWidth);
+            }
+        }
+        order.sort();
+        
+        contacts.clear();
+        for (int i = 0; i < order.size; i++) {
+            int first = (int) order.get(i);
+            for (int j = i + 1; j < order.size; j++) {
+                int second = (int) order.get(j);
+                if (minX[second] > maxX[first]) {
+                    break;
+                }
+                
+                int low = Math.min(owners[first], owners[second]);
+                int high = Math.max(owners[first], owners[second]);
+                if (low != high && accepts(colliders[low], colliders[high]) && overlaps(low, high, delta)) {
+                    contacts.add((long) low << 32 | high);
+                }
+            }
+        }
+        contacts.sort();
+        
+        for (int i = 0; i < contacts.size; i++) {
+            long contact = contacts.get(i);
+            if (i > 0 && contact == contacts.get(i - 1)) {
+                continue;
+            }
+            int a = (int) (contact >>> 32);
+            int b = (int) contact;
+            Entity entity = bodies[a];
+            Entity other = bodies[b];
+            
+            if (!entity.isScheduledForRemoval() && !other.isScheduledForRemoval()) {
+                dispatch(entity, colliders[a], other, colliders[b]);
+            }
+        }
+        
+        for (int i = 0; i < count; i++) {
+            bodies[i] = null;
+            colliders[i] = null;
+        }
+    }
+    
+    private int addInterval(int interval, int owner, float left, float right) {
+        owners[interval] = owner;
+        minX[interval] = left;
+        maxX[interval] = right;
+        order.add((long) sortable(left) << 32 | interval);
+        return interval + 1;
+    }
+    
+    private void dispatch(Entity entity, ColliderComponent collider, Entity other, ColliderComponent otherCollider) {
+        int index = collider.typeId * MAX_TYPES + otherCollider.typeId;
+        ContactHandler handler = handlers[index];
+        
+        if (handler != null) {
+            if (swapped[index]) {
+                handler.contact(other, entity);
+            } else {
+                handler.contact(entity, other);
+            }
+        }
+    }
+    
+    private static boolean accepts(ColliderComponent collider, ColliderComponent other) {
+        return (collider.mask & other.category) != 0 || (other.mask & collider.category) != 0;
+    }
+    
+    /**
+     * Tests the earlier collider against the nearest copy of the later one
+     * with the same arithmetic as the entity manager's narrowphase, so both
+     * engines agree on borderline contacts.
+     */
+    private boolean overlaps(int a, int b, float delta) {
+        ColliderComponent collider = colliders[a];
+        ColliderComponent other = colliders[b];
+        float otherX = other.boxX + Sweep.wrapShift(other.boxX, other.width, collider.boxX, collider.width, world.getWorldWidth());
+        float otherY = other.boxY + Sweep.wrapShift(other.boxY, other.height, collider.boxY, collider.height, world.getWorldHeight());
+        
+        if (collider.fast || other.fast) {
+            return Sweep.timeOfImpact(collider.boxX, collider.boxY, collider.width, collider.height, (speedX[a] - speedX[b]) * delta, (speedY[a] - speedY[b]) * delta,
+                    otherX, otherY, other.width, other.height) >= 0.0f;
+        } else {
+            return collider.boxX < otherX + other.width && collider.boxX + collider.width > otherX
+                    && collider.boxY < otherY + other.height && collider.boxY + collider.height > otherY;
+        }
+    }
+    
+    /**
+     * Maps a float onto an int with the same ordering, so it can serve as
+     * the high half of a sort key.
+     */
+    private static int sortable(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ (bits >> 31 & 0x7fffffff);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.ecs.systems;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.systems.IteratingSystem;
+import com.ray3k.impactors.ecs.EcsWorld;
+import com.ray3k.impactors.ecs.components.LifetimeComponent;
+
+public class LifetimeSystem extends IteratingSystem {
+    private final ComponentMapper<LifetimeComponent> lifetimeMapper = ComponentMapper.getFor(LifetimeComponent.class);
+    private final EcsWorld world;
+
+    public LifetimeSystem(EcsWorld world, int priority) {
+        super(Family.all(LifetimeComponent.class).get(), priority);
+        this.world = world;
+    }
+
+    @Override
+    protected void processEntity(Entity entity, float delta) {
+        LifetimeComponent lifetime = lifetimeMapper.get(entity);
+        
+        lifetime.life -= delta;
+        if (lifetime.life < 0.0f) {
+            world.destroy(entity);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.ecs.systems;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.systems.IteratingSystem;
+import com.ray3k.impactors.ecs.components.ColliderComponent;
+import com.ray3k.impactors.ecs.components.TransformComponent;
+import com.ray3k.impactors.ecs.components.VelocityComponent;
+
+/**
+ * Records the previous transform, integrates velocity and spin, then moves
+ * collision boxes along with their transforms.
+ * @author Raymond
+ */
+public class MovementSystem extends IteratingSystem {
+    private final ComponentMapper<TransformComponent> transformMapper = ComponentMapper.getFor(TransformComponent.class);
+    private final ComponentMapper<VelocityComponent> velocityMapper = ComponentMapper.getFor(VelocityComponent.class);
+    private final ComponentMapper<ColliderComponent> colliderMapper = ComponentMapper.getFor(ColliderComponent.class);
+
+    public MovementSystem(int priority) {
+        super(Family.all(TransformComponent.class, VelocityComponent.class).get(), priority);
+    }
+
+    @Override
+    protected void processEntity(Entity entity, float delta) {
+        TransformComponent transform = transformMapper.get(entity);
+        VelocityComponent velocity = velocityMapper.get(entity);
+        
+        transform.previousX = transform.x;
+        transform.previousY = transform.y;
+        transform.previousRotation = transform.rotation;
+        transform.hasPrevious = true;
+        
+        transform.x += velocity.speedX * delta;
+        transform.y += velocity.speedY * delta;
+        transform.rotation += velocity.rotationSpeed * delta;
+        
+        ColliderComponent collider = colliderMapper.get(entity);
+        if (collider != null) {
+            collider.boxX = transform.x + collider.offsetX;
+            collider.boxY = transform.y + collider.offsetY;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.ecs.systems;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.systems.IteratingSystem;
+import com.badlogic.gdx.Input.Keys;
+import com.ray3k.impactors.InputManager;
+import com.ray3k.impactors.ecs.EcsWorld;
+import com.ray3k.impactors.ecs.components.PlayerComponent;
+import com.ray3k.impactors.ecs.components.SpriteComponent;
+import com.ray3k.impactors.ecs.components.TransformComponent;
+import com.ray3k.impactors.ecs.components.VelocityComponent;
+
+/**
+ * Steers, thrusts and fires for every player entity from keyboard state.
+ * @author Raymond
+ */
+public class PlayerSystem extends IteratingSystem implements InputManager.KeyActionListener {
+    private static final float ROT_SPEED = -300.0f;
+    private static final float THRUST_SPEED = 500.0f;
+    private static final float MAX_SPEED = 1000.0f;
+    private static final float BULLET_DELAY = .1f;
+    private static final float BULLET_SPEED = 700.0f;
+    private static final float BULLET_LIFE = 1.0f;
+    private final ComponentMapper<PlayerComponent> playerMapper = ComponentMapper.getFor(PlayerComponent.class);
+    private final ComponentMapper<TransformComponent> transformMapper = ComponentMapper.getFor(TransformComponent.class);
+    private final ComponentMapper<VelocityComponent> velocityMapper = ComponentMapper.getFor(VelocityComponent.class);
+    private final ComponentMapper<SpriteComponent> spriteMapper = ComponentMapper.getFor(SpriteComponent.class);
+    private final EcsWorld world;
+    private final int laserSound;
+    private final int thrusterSound;
+
+    public PlayerSystem(EcsWorld world, int priority) {
+        super(Family.all(PlayerComponent.class, TransformComponent.class, VelocityComponent.class, SpriteComponent.class).get(), priority);
+        this.world = world;
+        laserSound = world.getGameState().getAudioManager().getId("laser");
+        thrusterSound = world.getGameState().getAudioManager().getId("thruster");
+    }
+
+    @Override
+    public void addedToEngine(Engine engine) {
+        super.addedToEngine(engine);
+        world.getGameState().getInputManager().addKeyActionListener(this);
+    }
+
+    @Override
+    public void removedFromEngine(Engine engine) {
+        super.removedFromEngine(engine);
+        world.getGameState().getInputManager().removeKeyActionListener(this);
+    }
+
+    @Override
+    protected void processEntity(Entity entity, float delta) {
+        PlayerComponent player = playerMapper.get(entity);
+        TransformComponent transform = transformMapper.get(entity);
+        VelocityComponent velocity = velocityMapper.get(entity);
+        SpriteComponent sprite = spriteMapper.get(entity);
+        
+        player.bulletTimer -= delta;
+        if (player.bulletTimer < 0) {
+            player.bulletTimer = -1.0f;
+        }
+        
+        if (world.getGameState().getInputManager().isKeyPressed(Keys.UP)) {
+            sprite.region = player.thrustRegion;
+        } else {
+            sprite.region = player.playerRegion;
+        }
+        
+        if (world.getGameState().getInputManager().isKeyPressed(Keys.LEFT)) {
+            transform.rotation += -ROT_SPEED * delta;
+        } else if (world.getGameState().getInputManager().isKeyPressed(Keys.RIGHT)) {
+            transform.rotation += ROT_SPEED * delta;
+        }
+        
+        if (world.getGameState().getInputManager().isKeyPressed(Keys.UP)) {
+            velocity.addMotion(THRUST_SPEED * delta, transform.rotation);
+        }
+        
+        if (velocity.getSpeed() > MAX_SPEED) {
+            velocity.setMotion(MAX_SPEED, velocity.getDirection());
+        }
+    }
+
+    @Override
+    public void keyPressed(int key) {
+        for (int i = 0; i < getEntities().size(); i++) {
+            Entity entity = getEntities().get(i);
+            if (!entity.isScheduledForRemoval()) {
+                if (key == Keys.SPACE) {
+                    fire(entity);
+                } else if (key == Keys.UP) {
+                    world.getGameState().requestSound(thrusterSound);
+                }
+            }
+        }
+    }
+    
+    private void fire(Entity entity) {
+        PlayerComponent player = playerMapper.get(entity);
+        
+        if (player.bulletTimer < 0) {
+            TransformComponent transform = transformMapper.get(entity);
+            VelocityComponent velocity = velocityMapper.get(entity);
+            SpriteComponent sprite = spriteMapper.get(entity);
+            
+            world.getGameState().requestSound(laserSound);
+            player.bulletTimer = BULLET_DELAY;
+            
+            Entity bullet = world.createBullet(player.id, transform.x + sprite.region.getRegionWidth() / 2.0f, transform.y + sprite.region.getRegionHeight() / 2.0f, BULLET_LIFE);
+            VelocityComponent bulletVelocity = velocityMapper.get(bullet);
+            bulletVelocity.setMotion(BULLET_SPEED, transform.rotation);
+            bulletVelocity.addMotion(velocity.getSpeed(), velocity.getDirection());
+        }
+    }
+}
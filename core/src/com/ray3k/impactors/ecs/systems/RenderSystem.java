@@ -0,0 +1,160 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.ecs.systems;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.systems.SortedIteratingSystem;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.ray3k.impactors.RenderQueue;
+import com.ray3k.impactors.ecs.EcsWorld;
+import com.ray3k.impactors.ecs.components.LifetimeComponent;
+import com.ray3k.impactors.ecs.components.SpriteComponent;
+import com.ray3k.impactors.ecs.components.TransformComponent;
+import com.ray3k.impactors.ecs.components.WrapComponent;
+import java.util.Comparator;
+
+/**
+ * Records sprites from the deepest to the shallowest into a
+ * {@link RenderQueue}, which is then drawn in one pass. Sprites that wrap
+ * around the world get ghosts across the edges they straddle. The engine never
+ * updates this system. It runs from {@link #draw(SpriteBatch, float)}
+ * instead, and only re-sorts when sprites are added or removed.
+ * @author Raymond
+ */
+public class RenderSystem extends SortedIteratingSystem {
+    private final ComponentMapper<TransformComponent> transformMapper = ComponentMapper.getFor(TransformComponent.class);
+    private final ComponentMapper<SpriteComponent> spriteMapper = ComponentMapper.getFor(SpriteComponent.class);
+    private final ComponentMapper<LifetimeComponent> lifetimeMapper = ComponentMapper.getFor(LifetimeComponent.class);
+    private final ComponentMapper<WrapComponent> wrapMapper = ComponentMapper.getFor(WrapComponent.class);
+    private final EcsWorld world;
+    private final RenderQueue renderQueue;
+    private RenderQueue queue;
+
+    public RenderSystem(EcsWorld world) {
+        super(Family.all(TransformComponent.class, SpriteComponent.class).get(), new DepthComparator());
+        this.world = world;
+        renderQueue = new RenderQueue();
+        setProcessing(false);
+    }
+    
+    /**
+     * @param spriteBatch
+     * @param alpha fraction of a tick elapsed since the last one, used to
+     * draw moving sprites between their previous and current transforms
+     */
+    public void draw(SpriteBatch spriteBatch, float alpha) {
+        renderQueue.clear();
+        record(renderQueue, alpha);
+        renderQueue.flush(spriteBatch);
+    }
+    
+    /**
+     * @param queue receives a command for each sprite
+     * @param alpha fraction of a tick elapsed since the last one
+     */
+    public void record(RenderQueue queue, float alpha) {
+        this.queue = queue;
+        queue.setWrapSize(world.getWorldWidth(), world.getWorldHeight());
+        update(alpha);
+        this.queue = null;
+    }
+    
+    public RenderQueue getRenderQueue() {
+        return renderQueue;
+    }
+
+    @Override
+    protected void processEntity(Entity entity, float alpha) {
+        TransformComponent transform = transformMapper.get(entity);
+        SpriteComponent sprite = spriteMapper.get(entity);
+        
+        if (sprite.region == null) {
+            return;
+        }
+        
+        queue.setDepth(sprite.depth);
+        queue.setWrapping(false);
+        if (sprite.fading) {
+            LifetimeComponent lifetime = lifetimeMapper.get(entity);
+            if (lifetime != null && lifetime.duration > 0.0f) {
+                queue.setColor(1.0f, 1.0f, 1.0f, lifetime.life / lifetime.duration);
+            }
+        }
+        
+        if (sprite.fullScreen) {
+            queue.add(sprite.region, 0.0f, 0.0f, 0.0f, 0.0f, world.getWorldWidth(), world.getWorldHeight(), 1.0f, 1.0f, 0.0f);
+        } else {
+            float x = transform.x;
+            float y = transform.y;
+            float rotation = transform.rotation;
+            float maxJumpX = world.getWorldWidth() / 2.0f;
+            float maxJumpY = world.getWorldHeight() / 2.0f;
+            boolean wrapping = wrapMapper.has(entity);
+            
+            if (transform.hasPrevious) {
+                float previousX = transform.previousX;
+                float previousY = transform.previousY;
+                if (wrapping) {
+                    if (x - previousX > maxJumpX) {
+                        previousX += world.getWorldWidth();
+                    } else if (previousX - x > maxJumpX) {
+                        previousX -= world.getWorldWidth();
+                    }
+                    
+                    if (y - previousY > maxJumpY) {
+                        previousY += world.getWorldHeight();
+                    } else if (previousY - y > maxJumpY) {
+                        previousY -= world.getWorldHeight();
+                    }
+                }
+                
+                if (Math.abs(x - previousX) < maxJumpX && Math.abs(y - previousY) < maxJumpY) {
+                    x = previousX + (x - previousX) * alpha;
+                    y = previousY + (y - previousY) * alpha;
+                    rotation = transform.previousRotation + (rotation - transform.previousRotation) * alpha;
+                }
+            }
+            queue.setWrapping(wrapping);
+            queue.add(sprite.region, x, y, transform.offsetX, transform.offsetY, sprite.region.getRegionWidth(), sprite.region.getRegionHeight(), transform.scaleX, transform.scaleY, rotation);
+        }
+        
+        if (sprite.fading) {
+            queue.setColor(Color.WHITE);
+        }
+    }
+    
+    private static class DepthComparator implements Comparator<Entity> {
+        private final ComponentMapper<SpriteComponent> spriteMapper = ComponentMapper.getFor(SpriteComponent.class);
+        
+        @Override
+        public int compare(Entity entity, Entity other) {
+            int depth = spriteMapper.get(entity).depth;
+            int otherDepth = spriteMapper.get(other).depth;
+            return depth > otherDepth ? -1 : depth < otherDepth ? 1 : 0;
+        }
+    }
+}
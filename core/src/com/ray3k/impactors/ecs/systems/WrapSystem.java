@@ -0,0 +1,67 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.ecs.systems;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.systems.IteratingSystem;
+import com.ray3k.impactors.ecs.EcsWorld;
+import com.ray3k.impactors.ecs.components.SpriteComponent;
+import com.ray3k.impactors.ecs.components.TransformComponent;
+import com.ray3k.impactors.ecs.components.WrapComponent;
+
+public class WrapSystem extends IteratingSystem {
+    private final ComponentMapper<TransformComponent> transformMapper = ComponentMapper.getFor(TransformComponent.class);
+    private final EcsWorld world;
+
+    public WrapSystem(EcsWorld world, int priority) {
+        super(Family.all(TransformComponent.class, SpriteComponent.class, WrapComponent.class).get(), priority);
+        this.world = world;
+    }
+
+    @Override
+    protected void processEntity(Entity entity, float delta) {
+        TransformComponent transform = transformMapper.get(entity);
+        
+        transform.x = wrap(transform.x, world.getWorldWidth());
+        transform.y = wrap(transform.y, world.getWorldHeight());
+    }
+    
+    /**
+     * Moves a coordinate that has left the world by a whole world width or
+     * height, the same way {@link com.ray3k.impactors.Entity} wraps.
+     * @param position x or y
+     * @param worldSize width or height of the world
+     * @return the wrapped coordinate
+     */
+    public static float wrap(float position, float worldSize) {
+        if (position < 0.0f) {
+            return position + worldSize;
+        } else if (position >= worldSize) {
+            return position - worldSize;
+        }
+        return position;
+    }
+}
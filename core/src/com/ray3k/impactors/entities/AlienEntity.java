@@ -24,14 +24,12 @@
 
 package com.ray3k.impactors.entities;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.audio.Sound;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.utils.Array;
 import static com.ray3k.impactors.Core.DATA_PATH;
 import com.ray3k.impactors.Entity;
+import com.ray3k.impactors.RenderQueue;
 import com.ray3k.impactors.states.GameState;
 
 public class AlienEntity extends Entity implements Enemy {
@@ -43,82 +41,71 @@ public class AlienEntity extends Entity implements Enemy {
     private static final float BULLET_SPEED = 400.0f;
     private static final float BULLET_DELAY = 1.0f;
     private float bulletTimer;
+    private final Array<AsteroidEntity> nearbyAsteroids;
     
     private GameState gameState;
+    private final int explosionSound;
+    private final int laserSound;
+    private final int ufoSound;
 
     public AlienEntity(GameState gameState) {
         super(gameState.getEntityManager(), gameState.getCore());
         this.gameState = gameState;
-        create();
+        explosionSound = gameState.getAudioManager().getId("explosion");
+        laserSound = gameState.getAudioManager().getId("laser");
+        ufoSound = gameState.getAudioManager().getId("ufo");
+        nearbyAsteroids = new Array<AsteroidEntity>();
     }
     
     @Override
     public void create() {
+        setWrapping(true);
         setTextureRegion(getAlienTexture());
-        getCollisionBox().setSize(getTextureRegion().getRegionWidth(), getTextureRegion().getRegionHeight());
+        setCollisionBoxSize(getTextureRegion().getRegionWidth(), getTextureRegion().getRegionHeight());
         setOffsetX(getTextureRegion().getRegionWidth() / 2.0f);
         setOffsetY(getTextureRegion().getRegionHeight() / 2.0f);
-        setMotion(MathUtils.random(MIN_SPEED, MAX_SPEED), MathUtils.random(360.0f));
+        setMotion(gameState.random(MIN_SPEED, MAX_SPEED), gameState.random(360.0f));
         setCheckingCollisions(true);
-        GameState.gameState.getSound("ufo").play();
+        setTypeId(EntityTypes.ALIEN);
+        setCollisionCategory(CollisionCategories.ALIEN);
+        setCollisionMask(CollisionCategories.BULLET | CollisionCategories.ASTEROID);
+        gameState.requestSound(ufoSound);
         bulletTimer = FIRING_RATE;
-        
-        if (gameState != null) {
-            for (Entity entity : gameState.getEntityManager().getEntities()) {
-                if (entity instanceof AsteroidEntity) {
-                    if (getPosition().dst(entity.getPosition()) < SPAWN_KILL_ZONE) {
-                        ((AsteroidEntity) entity).setSpawnChildren(false);
-                        entity.dispose();
-                    }
-                }
-            }
+    }
+    
+    /**
+     * Removes asteroids too close to the alien's current position without
+     * splitting them. Call once the alien has been placed.
+     */
+    public void clearSpawnZone() {
+        getManager().queryRadius(getX(), getY(), SPAWN_KILL_ZONE, AsteroidEntity.class, nearbyAsteroids);
+        for (AsteroidEntity asteroid : nearbyAsteroids) {
+            asteroid.setSpawnChildren(false);
+            asteroid.dispose();
         }
+        nearbyAsteroids.clear();
     }
 
     @Override
     public void act(float delta) {
-        if (getX() + getTextureRegion().getRegionWidth() < 0) {
-            setX(Gdx.graphics.getWidth());
-        } else if (getX() > Gdx.graphics.getWidth()) {
-            setX(-getTextureRegion().getRegionWidth());
-        }
-        
-        if (getY() + getTextureRegion().getRegionHeight() < 0) {
-            setY(Gdx.graphics.getHeight());
-        } else if (getY() > Gdx.graphics.getHeight()) {
-            setY(-getTextureRegion().getRegionHeight());
-        }
+        wrap();
         
         bulletTimer -= delta;
         if (bulletTimer < 0) {
             bulletTimer = FIRING_RATE;
-            setMotion(getSpeed(), MathUtils.random(360.0f));
+            setMotion(getSpeed(), gameState.random(360.0f));
             
-            Entity candidate = null;
-            float candidateDistance = ASTEROID_KILL_RANGE;
-            for (Entity entity : gameState.getEntityManager().getEntities()) {
-                if (entity instanceof AsteroidEntity) {
-                    float distance = getPosition().dst(entity.getPosition());
-                    if (distance < candidateDistance) {
-                        candidateDistance = distance;
-                        candidate = entity;
-                    }
-                }
-            }
+            Entity candidate = getManager().queryNearest(getX(), getY(), ASTEROID_KILL_RANGE, AsteroidEntity.class);
 
             if (candidate == null) {
-                for (Entity entity : gameState.getEntityManager().getEntities()) {
-                    if (entity instanceof PlayerEntity) {
-                        candidate = entity;
-                    }
-                }
+                candidate = getManager().first(PlayerEntity.class);
             }
 
             if (candidate != null) {
-                gameState.getSound("laser").play();
+                gameState.requestSound(laserSound);
                 bulletTimer = BULLET_DELAY;
 
-                BulletEntity bullet = new BulletEntity(gameState);
+                BulletEntity bullet = getManager().spawn(BulletEntity.class);
                 bullet.setParent(this);
                 bullet.setPosition(getX() + getTextureRegion().getRegionWidth() / 2.0f, getY() + getTextureRegion().getRegionHeight() / 2.0f);
                 bullet.setMotion(BULLET_SPEED, (float) (Math.atan2(candidate.getY() - getY(), candidate.getX() - getX()) * 180.0f / Math.PI));
@@ -133,38 +120,42 @@ public class AlienEntity extends Entity implements Enemy {
     }
 
     @Override
-    public void draw(SpriteBatch spriteBatch, float delta) {
+    public void draw(RenderQueue queue, float alpha) {
     }
 
     @Override
     public void destroy() {
+        gameState.reportDestroyed(this);
         spawnDusts(3);
     }
 
     @Override
     public void collision(Entity other) {
-        if (other instanceof BulletEntity) {
-            if (((BulletEntity) other).getParent() != this) {
-                other.dispose();
-                dispose();
-                gameState.addScore(10);
-                gameState.getSound("explosion").play();
-            }
-        } else if (other instanceof AsteroidEntity && !other.isDestroyed()) {
+    }
+    
+    public void hit(BulletEntity bullet) {
+        if (bullet.getParent() != this) {
+            bullet.dispose();
             dispose();
-            other.dispose();
+            gameState.awardScore(10);
+            gameState.requestSound(explosionSound);
         }
     }
     
+    public void hit(AsteroidEntity asteroid) {
+        dispose();
+        asteroid.dispose();
+    }
+    
     private TextureRegion getAlienTexture() {
         Array<String> names = getCore().getImagePacks().get(DATA_PATH + "/enemies");
         
-        return getCore().getAtlas().findRegion(names.random());
+        return getCore().getAtlas().findRegion(gameState.random(names));
     }
     
     public void spawnDusts(int number) {
         for (int i = 0; i < number; i++) {            
-            DustEntity dust = new DustEntity(gameState);
+            DustEntity dust = getManager().spawn(DustEntity.class);
             dust.setPosition(getX(), getY());
         }
     }
@@ -24,14 +24,12 @@
 
 package com.ray3k.impactors.entities;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.audio.Sound;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.utils.Array;
 import static com.ray3k.impactors.Core.DATA_PATH;
 import com.ray3k.impactors.Entity;
+import com.ray3k.impactors.RenderQueue;
 import com.ray3k.impactors.states.GameState;
 
 public class AsteroidEntity extends Entity implements Enemy {
@@ -47,51 +45,46 @@ public class AsteroidEntity extends Entity implements Enemy {
     }
     private Type type;
     private GameState gameState;
+    private final int explosionSound;
 
-    public AsteroidEntity(GameState gameState, Type type) {
+    public AsteroidEntity(GameState gameState) {
         super(gameState.getEntityManager(), gameState.getCore());
-        this.type = type;
         this.gameState = gameState;
-        create();
+        explosionSound = gameState.getAudioManager().getId("explosion");
+        type = Type.LARGE;
     }
     
     @Override
     public void create() {
+        setWrapping(true);
         if (type == Type.LARGE) {
             setTextureRegion(getAsteroidTexture());
-            getCollisionBox().setSize(getTextureRegion().getRegionWidth(), getTextureRegion().getRegionHeight());
+            setCollisionBoxSize(getTextureRegion().getRegionWidth(), getTextureRegion().getRegionHeight());
             setOffsetX(getTextureRegion().getRegionWidth() / 2.0f);
             setOffsetY(getTextureRegion().getRegionHeight() / 2.0f);
         } else if (type == Type.MEDIUM) {
             setTextureRegion(getAsteroidMtexture());
-            getCollisionBox().setSize(getTextureRegion().getRegionWidth(), getTextureRegion().getRegionHeight());            
+            setCollisionBoxSize(getTextureRegion().getRegionWidth(), getTextureRegion().getRegionHeight());            
             setOffsetX(getTextureRegion().getRegionWidth() / 2.0f);
             setOffsetY(getTextureRegion().getRegionHeight() / 2.0f);
         } else if (type == Type.SMALL) {
             setTextureRegion(getAsteroidStexture());
-            getCollisionBox().setSize(getTextureRegion().getRegionWidth(), getTextureRegion().getRegionHeight());
+            setCollisionBoxSize(getTextureRegion().getRegionWidth(), getTextureRegion().getRegionHeight());
             setOffsetX(getTextureRegion().getRegionWidth() / 2.0f);
             setOffsetY(getTextureRegion().getRegionHeight() / 2.0f);
         }
-        setMotion(MathUtils.random(MIN_SPEED, MAX_SPEED), MathUtils.random(360.0f));
+        setMotion(gameState.random(MIN_SPEED, MAX_SPEED), gameState.random(360.0f));
         setCheckingCollisions(true);
-        rotationSpeed = MathUtils.randomSign() * MathUtils.random(MIN_ROTATION_SPEED, MAX_ROTATION_SPEED);
+        setTypeId(EntityTypes.ASTEROID);
+        setCollisionCategory(CollisionCategories.ASTEROID);
+        setCollisionMask(CollisionCategories.BULLET);
+        rotationSpeed = gameState.randomSign() * gameState.random(MIN_ROTATION_SPEED, MAX_ROTATION_SPEED);
         spawnChildren = true;
     }
 
     @Override
     public void act(float delta) {
-        if (getX() + getTextureRegion().getRegionWidth() < 0) {
-            setX(Gdx.graphics.getWidth());
-        } else if (getX() > Gdx.graphics.getWidth()) {
-            setX(-getTextureRegion().getRegionWidth());
-        }
-        
-        if (getY() + getTextureRegion().getRegionHeight() < 0) {
-            setY(Gdx.graphics.getHeight());
-        } else if (getY() > Gdx.graphics.getHeight()) {
-            setY(-getTextureRegion().getRegionHeight());
-        }
+        wrap();
         
         addRotation(rotationSpeed * delta);
     }
@@ -101,11 +94,12 @@ public class AsteroidEntity extends Entity implements Enemy {
     }
 
     @Override
-    public void draw(SpriteBatch spriteBatch, float delta) {
+    public void draw(RenderQueue queue, float alpha) {
     }
 
     @Override
     public void destroy() {
+        gameState.reportDestroyed(this);
         if (type == Type.LARGE) {
             if (spawnChildren) {
                 spawnAsteroids(3, Type.MEDIUM);
@@ -121,45 +115,69 @@ public class AsteroidEntity extends Entity implements Enemy {
 
     @Override
     public void collision(Entity other) {
-        if (other instanceof BulletEntity) {
-            ((BulletEntity) other).dispose();
-            dispose();
-            gameState.addScore(10);
-            gameState.getSound("explosion").play();
-        }
+    }
+    
+    public void hit(BulletEntity bullet) {
+        bullet.dispose();
+        dispose();
+        gameState.awardScore(10);
+        gameState.requestSound(explosionSound);
     }
     
     private TextureRegion getAsteroidTexture() {
         Array<String> names = getCore().getImagePacks().get(DATA_PATH + "/asteroids");
         
-        return getCore().getAtlas().findRegion(names.random());
+        return getCore().getAtlas().findRegion(gameState.random(names));
     }
     private TextureRegion getAsteroidMtexture() {
         Array<String> names = getCore().getImagePacks().get(DATA_PATH + "/asteroids-m");
         
-        return getCore().getAtlas().findRegion(names.random());
+        return getCore().getAtlas().findRegion(gameState.random(names));
     }
     
     private TextureRegion getAsteroidStexture() {
         Array<String> names = getCore().getImagePacks().get(DATA_PATH + "/asteroids-s");
         
-        return getCore().getAtlas().findRegion(names.random());
+        return getCore().getAtlas().findRegion(gameState.random(names));
     }
     
     public void spawnAsteroids(int number, AsteroidEntity.Type type) {
         for (int i = 0; i < number; i++) {            
-            AsteroidEntity ast = new AsteroidEntity(gameState, type);
+            AsteroidEntity ast = getManager().obtain(AsteroidEntity.class);
+            ast.setType(type);
+            getManager().addEntity(ast);
             ast.setPosition(getX(), getY());
         }
     }
     
     public void spawnDusts(int number) {
         for (int i = 0; i < number; i++) {            
-            DustEntity dust = new DustEntity(gameState);
+            DustEntity dust = getManager().spawn(DustEntity.class);
             dust.setPosition(getX(), getY());
         }
     }
 
+    @Override
+    public void reset() {
+        super.reset();
+        type = Type.LARGE;
+        rotationSpeed = 0.0f;
+        spawnChildren = true;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Sets the size of asteroid to create. Must be called before the asteroid
+     * is added to the manager.
+     * @param type 
+     */
+    public void setType(Type type) {
+        this.type = type;
+    }
+
     public boolean isSpawnChildren() {
         return spawnChildren;
     }
@@ -24,20 +24,21 @@
 
 package com.ray3k.impactors.entities;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Array;
 import static com.ray3k.impactors.Core.DATA_PATH;
 import com.ray3k.impactors.Entity;
+import com.ray3k.impactors.RenderQueue;
 import com.ray3k.impactors.states.GameState;
 
 public class BulletEntity extends Entity {
     private Entity parent;
     private float lifeCounter;
+    private GameState gameState;
     
     public BulletEntity(GameState gameState) {
         super(gameState.getEntityManager(), gameState.getCore());
+        this.gameState = gameState;
     }
     
     @Override
@@ -45,23 +46,17 @@ public class BulletEntity extends Entity {
         setTextureRegion(getBullet());
         
         setCheckingCollisions(true);
-        getCollisionBox().width = getTextureRegion().getRegionWidth();
-        getCollisionBox().height = getTextureRegion().getRegionHeight();
+        setWrapping(true);
+        setFast(true);
+        setTypeId(EntityTypes.BULLET);
+        setCollisionCategory(CollisionCategories.BULLET);
+        setCollisionMask(0);
+        setCollisionBoxSize(getTextureRegion().getRegionWidth(), getTextureRegion().getRegionHeight());
     }
 
     @Override
     public void act(float delta) {
-        if (getX() + getTextureRegion().getRegionWidth() < 0) {
-            setX(Gdx.graphics.getWidth());
-        } else if (getX() > Gdx.graphics.getWidth()) {
-            setX(-getTextureRegion().getRegionWidth());
-        }
-        
-        if (getY() + getTextureRegion().getRegionHeight() < 0) {
-            setY(Gdx.graphics.getHeight());
-        } else if (getY() > Gdx.graphics.getHeight()) {
-            setY(-getTextureRegion().getRegionHeight());
-        }
+        wrap();
         
         lifeCounter -= delta;
         if (lifeCounter < 0) {
@@ -74,7 +69,7 @@ public class BulletEntity extends Entity {
     }
 
     @Override
-    public void draw(SpriteBatch spriteBatch, float delta) {
+    public void draw(RenderQueue queue, float alpha) {
     }
 
     @Override
@@ -85,6 +80,13 @@ public class BulletEntity extends Entity {
     public void collision(Entity other) {
     }
 
+    @Override
+    public void reset() {
+        super.reset();
+        parent = null;
+        lifeCounter = 0.0f;
+    }
+
     public Entity getParent() {
         return parent;
     }
@@ -96,7 +98,7 @@ public class BulletEntity extends Entity {
     private TextureRegion getBullet() {
         Array<String> names = getCore().getImagePacks().get(DATA_PATH + "/bullets");
         
-        return getCore().getAtlas().findRegion(names.random());
+        return getCore().getAtlas().findRegion(gameState.random(names));
     }
 
     public float getLifeCounter() {
@@ -0,0 +1,40 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.entities;
+
+/**
+ * Collision category bits used by the entities in this package.
+ * Each is the bit of the matching {@link EntityTypes} id.
+ * @author Raymond
+ */
+public final class CollisionCategories {
+    public static final int ASTEROID = 1 << EntityTypes.ASTEROID;
+    public static final int ALIEN = 1 << EntityTypes.ALIEN;
+    public static final int BULLET = 1 << EntityTypes.BULLET;
+    public static final int PLAYER = 1 << EntityTypes.PLAYER;
+    public static final int DUST = 1 << EntityTypes.DUST;
+    
+    private CollisionCategories() {
+    }
+}
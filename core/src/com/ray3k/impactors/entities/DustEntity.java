@@ -24,12 +24,11 @@
 
 package com.ray3k.impactors.entities;
 
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.utils.Array;
 import static com.ray3k.impactors.Core.DATA_PATH;
 import com.ray3k.impactors.Entity;
+import com.ray3k.impactors.RenderQueue;
 import com.ray3k.impactors.states.GameState;
 
 public class DustEntity extends Entity{
@@ -38,16 +37,21 @@ public class DustEntity extends Entity{
     private static final float LIFE_MIN = .25f;
     private static final float LIFE_MAX = 1.0f;
     private float life;
+    private GameState gameState;
 
     public DustEntity(GameState gameState) {
         super(gameState.getEntityManager(), gameState.getCore());
+        this.gameState = gameState;
     }
 
     @Override
     public void create() {
         setTextureRegion(getDustTexture());
-        life = MathUtils.random(LIFE_MIN, LIFE_MAX);
-        setMotion(MathUtils.random(MIN_SPEED, MAX_SPEED), MathUtils.random(360.0f));
+        setTypeId(EntityTypes.DUST);
+        setCollisionCategory(CollisionCategories.DUST);
+        setCollisionMask(0);
+        life = gameState.random(LIFE_MIN, LIFE_MAX);
+        setMotion(gameState.random(MIN_SPEED, MAX_SPEED), gameState.random(360.0f));
     }
 
     @Override
@@ -63,7 +67,7 @@ public class DustEntity extends Entity{
     }
 
     @Override
-    public void draw(SpriteBatch spriteBatch, float delta) {
+    public void draw(RenderQueue queue, float alpha) {
     }
 
     @Override
@@ -74,9 +78,15 @@ public class DustEntity extends Entity{
     public void collision(Entity other) {
     }
 
+    @Override
+    public void reset() {
+        super.reset();
+        life = 0.0f;
+    }
+
     private TextureRegion getDustTexture() {
         Array<String> names = getCore().getImagePacks().get(DATA_PATH + "/dusts");
         
-        return getCore().getAtlas().findRegion(names.random());
+        return getCore().getAtlas().findRegion(gameState.random(names));
     }
 }
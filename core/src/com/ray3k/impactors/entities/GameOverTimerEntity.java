@@ -24,8 +24,8 @@
 
 package com.ray3k.impactors.entities;
 
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.ray3k.impactors.Entity;
+import com.ray3k.impactors.RenderQueue;
 import com.ray3k.impactors.states.GameOverState;
 import com.ray3k.impactors.states.GameState;
 
@@ -58,7 +58,7 @@ public class GameOverTimerEntity extends Entity {
     }
 
     @Override
-    public void draw(SpriteBatch spriteBatch, float delta) {
+    public void draw(RenderQueue queue, float alpha) {
     }
 
     @Override
@@ -27,12 +27,12 @@ package com.ray3k.impactors.entities;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.audio.Sound;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Array;
 import static com.ray3k.impactors.Core.DATA_PATH;
 import com.ray3k.impactors.Entity;
 import com.ray3k.impactors.InputManager;
+import com.ray3k.impactors.RenderQueue;
 import com.ray3k.impactors.states.GameState;
 
 public class PlayerEntity extends Entity implements InputManager.KeyActionListener {
@@ -47,9 +47,18 @@ public class PlayerEntity extends Entity implements InputManager.KeyActionListen
     private float bulletTimer;
     private static final float BULLET_LIFE = 1.0f;
     
+    private final int explosionSound;
+    private final int gameOverSound;
+    private final int laserSound;
+    private final int thrusterSound;
+
     public PlayerEntity(GameState gameState) {
         super(gameState.getEntityManager(), gameState.getCore());
         this.gameState = gameState;
+        explosionSound = gameState.getAudioManager().getId("explosion");
+        gameOverSound = gameState.getAudioManager().getId("game-over");
+        laserSound = gameState.getAudioManager().getId("laser");
+        thrusterSound = gameState.getAudioManager().getId("thruster");
     }
 
     @Override
@@ -57,6 +66,10 @@ public class PlayerEntity extends Entity implements InputManager.KeyActionListen
         bulletTimer = -1.0f;
         
         setCheckingCollisions(true);
+        setWrapping(true);
+        setTypeId(EntityTypes.PLAYER);
+        setCollisionCategory(CollisionCategories.PLAYER);
+        setCollisionMask(CollisionCategories.BULLET | CollisionCategories.ASTEROID | CollisionCategories.ALIEN);
         playerRegion = getPlayerTexture();
         setOffsetX(playerRegion.getRegionWidth() / 2.0f);
         setOffsetY(playerRegion.getRegionHeight() / 2.0f);
@@ -67,7 +80,7 @@ public class PlayerEntity extends Entity implements InputManager.KeyActionListen
         setX(Gdx.graphics.getWidth() / 2.0f - getTextureRegion().getRegionWidth() / 2.0f);
         setY(30.0f);
         
-        getCollisionBox().setSize(getTextureRegion().getRegionWidth() / 2.0f, getTextureRegion().getRegionHeight() / 2.0f);
+        setCollisionBoxSize(getTextureRegion().getRegionWidth() / 2.0f, getTextureRegion().getRegionHeight() / 2.0f);
         setCollisionBoxX(getTextureRegion().getRegionWidth() / 4.0f);
         setCollisionBoxY(getTextureRegion().getRegionHeight() / 4.0f);
         
@@ -81,19 +94,19 @@ public class PlayerEntity extends Entity implements InputManager.KeyActionListen
             bulletTimer = -1.0f;
         }
         
-        if (Gdx.input.isKeyPressed(Keys.UP)) {
+        if (gameState.getInputManager().isKeyPressed(Keys.UP)) {
             setTextureRegion(thrustRegion);
         } else {
             setTextureRegion(playerRegion);
         }
         
-        if (Gdx.input.isKeyPressed(Keys.LEFT)) {
+        if (gameState.getInputManager().isKeyPressed(Keys.LEFT)) {
             addRotation(-ROT_SPEED * delta);
-        } else if (Gdx.input.isKeyPressed(Keys.RIGHT)) {
+        } else if (gameState.getInputManager().isKeyPressed(Keys.RIGHT)) {
             addRotation(ROT_SPEED * delta);
         }
         
-        if (Gdx.input.isKeyPressed(Keys.UP)) {
+        if (gameState.getInputManager().isKeyPressed(Keys.UP)) {
             addMotion(THRUST_SPEED * delta, getRotation());
         }
         
@@ -101,17 +114,7 @@ public class PlayerEntity extends Entity implements InputManager.KeyActionListen
             setMotion(MAX_SPEED, getDirection());
         }
         
-        if (getX() + getTextureRegion().getRegionWidth() < 0) {
-            setX(Gdx.graphics.getWidth());
-        } else if (getX() > Gdx.graphics.getWidth()) {
-            setX(-getTextureRegion().getRegionWidth());
-        }
-        
-        if (getY() + getTextureRegion().getRegionHeight() < 0) {
-            setY(Gdx.graphics.getHeight());
-        } else if (getY() > Gdx.graphics.getHeight()) {
-            setY(-getTextureRegion().getRegionHeight());
-        }
+        wrap();
     }
 
     @Override
@@ -120,50 +123,53 @@ public class PlayerEntity extends Entity implements InputManager.KeyActionListen
     }
 
     @Override
-    public void draw(SpriteBatch spriteBatch, float delta) {
+    public void draw(RenderQueue queue, float alpha) {
         
     }
 
     @Override
     public void destroy() {
-        gameState.getSound("explosion").play();
-        gameState.getSound("game-over").play();
-        new WhiteFlashEntity(gameState);
-        new GameOverTimerEntity(gameState, 1.0f);
+        gameState.reportDestroyed(this);
+        gameState.requestSound(explosionSound);
+        gameState.requestSound(gameOverSound);
+        getManager().addEntity(new WhiteFlashEntity(gameState));
+        getManager().addEntity(new GameOverTimerEntity(gameState, 1.0f));
     }
 
     @Override
     public void collision(Entity other) {
-        if (other instanceof BulletEntity) {
-            BulletEntity bullet = (BulletEntity) other;
-            if (bullet.getParent() != this) {
-                bullet.dispose();
-                dispose();
-            }
-        } else if (other instanceof Enemy) {
-            other.dispose();
+    }
+    
+    public void hit(BulletEntity bullet) {
+        if (bullet.getParent() != this) {
+            bullet.dispose();
             dispose();
         }
     }
+    
+    public void hit(Enemy enemy) {
+        ((Entity) enemy).dispose();
+        dispose();
+    }
 
     @Override
     public void keyPressed(int key) {
         if (!isDestroyed()) {
             if (key == Keys.SPACE) {
                 if (bulletTimer < 0) {
-                    gameState.getSound("laser").play();
+                    gameState.requestSound(laserSound);
                     bulletTimer = BULLET_DELAY;
 
-                    BulletEntity bullet = new BulletEntity(gameState);
+                    BulletEntity bullet = getManager().spawn(BulletEntity.class);
                     bullet.setParent(this);
                     bullet.setPosition(getX() + getTextureRegion().getRegionWidth() / 2.0f, getY() + getTextureRegion().getRegionHeight() / 2.0f);
-                    bullet.getCollisionBox().setPosition(bullet.getX(), bullet.getY());
+                    bullet.updateCollisionBox();
                     bullet.setMotion(BULLET_SPEED, getRotation());
                     bullet.addMotion(getSpeed(), getDirection());
                     bullet.setLifeCounter(BULLET_LIFE);
                 }
             } else if (key == Keys.UP) {
-                gameState.getSound("thruster").play();
+                gameState.requestSound(thrusterSound);
             }
         }
     }
@@ -171,12 +177,12 @@ public class PlayerEntity extends Entity implements InputManager.KeyActionListen
     private TextureRegion getPlayerTexture() {
         Array<String> names = getCore().getImagePacks().get(DATA_PATH + "/players");
         
-        return getCore().getAtlas().findRegion(names.random());
+        return getCore().getAtlas().findRegion(gameState.random(names));
     }
     
     private TextureRegion getPlayerThrustTexture() {
         Array<String> names = getCore().getImagePacks().get(DATA_PATH + "/players-thrust");
         
-        return getCore().getAtlas().findRegion(names.random());
+        return getCore().getAtlas().findRegion(gameState.random(names));
     }
 }
@@ -2,9 +2,9 @@ package com.ray3k.impactors.entities;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.ray3k.impactors.Entity;
+import com.ray3k.impactors.RenderQueue;
 import com.ray3k.impactors.states.GameState;
 
 /*
@@ -61,10 +61,10 @@ public class WhiteFlashEntity extends Entity {
     }
 
     @Override
-    public void draw(SpriteBatch spriteBatch, float delta) {
-        spriteBatch.setColor(1.0f, 1.0f, 1.0f, life / LIFE_MAX);
-        spriteBatch.draw(region, 0.0f, 0.0f, 0.0f, 0.0f, Gdx.graphics.getWidth(), Gdx.graphics.getHeight(), 1.0f, 1.0f, 0.0f);
-        spriteBatch.setColor(Color.WHITE);
+    public void draw(RenderQueue queue, float alpha) {
+        queue.setColor(1.0f, 1.0f, 1.0f, life / LIFE_MAX);
+        queue.add(region, 0.0f, 0.0f, 0.0f, 0.0f, Gdx.graphics.getWidth(), Gdx.graphics.getHeight(), 1.0f, 1.0f, 0.0f);
+        queue.setColor(Color.WHITE);
     }
 
     @Override
@@ -0,0 +1,69 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.impactors.events;
+
+import com.ray3k.impactors.Entity;
+
+/**
+ * Records what was destroyed and where. The entity itself is not kept since
+ * pooled entities may be reused before the queue is drained.
+ * @author Raymond
+ */
+public class EntityDestroyedEvent extends GameEvent {
+    private Class<? extends Entity> type;
+    private float x;
+    private float y;
+    
+    public void set(Entity entity) {
+        type = entity.getClass();
+        x = entity.getX();
+        y = entity.getY();
+    }
+    
+    public void set(Class<? extends Entity> type, float x, float y) {
+        this.type = type;
+        this.x = x;
+        this.y = y;
+    }
+
+    public Class<? extends Entity> getType() {
+        return type;
+    }
+
+    public float getX() {
+        return x;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    @Override
+    public void reset() {
+        type = null;
+        x = 0.0f;
+        y = 0.0f;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.ray3k.impactors.events;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.Pools;
+
+/**
+ * Collects events posted during a tick and hands them to their listeners in
+ * posting order when {@link #drain()} is called.
+ * @author Raymond
+ */
+public class EventQueue {
+    private final Array<GameEvent> events;
+    private final ObjectMap<Class<? extends GameEvent>, Array<EventListener<GameEvent>>> listeners;
+
+    public EventQueue() {
+        events = new Array<GameEvent>();
+        listeners = new ObjectMap<Class<? extends GameEvent>, Array<EventListener<GameEvent>>>();
+    }
+    
+    /**
+     * Listeners are kept per exact event class and only ever handed events
+     * of that class.
+     * @param <T>
+     * @param type
+     * @param listener 
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends GameEvent> void subscribe(Class<T> type, EventListener<? super T> listener) {
+        Array<EventListener<GameEvent>> typeListeners = listeners.get(type);
+        if (typeListeners == null) {
+            typeListeners = new Array<EventListener<GameEvent>>();
+            listeners.put(type, typeListeners);
+        }
+        typeListeners.add((EventListener<GameEvent>) listener);
+    }
+    
+    @SuppressWarnings("unchecked")
+    public <T extends GameEvent> void unsubscribe(Class<T> type, EventListener<? super T> listener) {
+        Array<EventListener<GameEvent>> typeListeners = listeners.get(type);
+        if (typeListeners != null) {
+            typeListeners.removeValue((EventListener<GameEvent>) listener, true);
+        }
+    }
+    
+    /**
+     * Obtains a pooled event of the given class and queues it. The caller
+     * fills in the returned event.
+     * @param <T>
+     * @param type
+     * @return 
+     */
+    public <T extends GameEvent> T post(Class<T> type) {
+        T event = Pools.obtain(type);
+        events.add(event);
+        return event;
+    }
+    
+    /**
+     * Delivers every queued event, including any posted by listeners along
+     * the way, and returns them to their pools.
+     */
+    public void drain() {
+        for (int i = 0; i < events.size; i++) {
+            GameEvent event = events.get(i);
+            Array<EventListener<GameEvent>> typeListeners = listeners.get(event.getClass());
+            if (typeListeners != null) {
+                for (int j = 0; j < typeListeners.size; j++) {
+                    typeListeners.get(j).handle(event);
+                }
+            }
+        }
+        
+        Pools.freeAll(events);
+        events.clear();
+    }
+    
+    public void clear() {
+        Pools.freeAll(events);
+        events.clear();
+        listeners.clear();
+    }
+}
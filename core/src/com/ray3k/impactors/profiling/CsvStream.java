@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.profiling;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.StreamUtils;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Appends "frame,metric,value" rows to a CSV file. Rows are only appended
+ * to a buffer on the calling thread; a daemon thread swaps the buffer out
+ * and writes it to disk a few times a second.
+ * @author Raymond
+ */
+public class CsvStream implements Runnable {
+    private static final long FLUSH_INTERVAL = 250;
+    private final FileHandle file;
+    private final Writer writer;
+    private final Thread thread;
+    private final Object lock = new Object();
+    private StringBuilder pending = new StringBuilder();
+    private StringBuilder writing = new StringBuilder();
+    private volatile boolean closed;
+
+    public CsvStream(FileHandle file) {
+        this.file = file;
+        writer = file.writer(false, "UTF-8");
+        pending.append("frame,metric,value\n");
+        thread = new Thread(this, "profiler-csv");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    public void row(long frame, String metric, long value) {
+        synchronized (lock) {
+            pending.append(frame).append(',').append(metric).append(',').append(value).append('\n');
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!closed) {
+                try {
+                    Thread.sleep(FLUSH_INTERVAL);
+                } catch (InterruptedException e) {
+                }
+                flush();
+            }
+            flush();
+        } catch (IOException e) {
+            Gdx.app.error(CsvStream.class.getName(), "Error writing profile: " + file.path(), e);
+        } finally {
+            StreamUtils.closeQuietly(writer);
+        }
+    }
+    
+    private void flush() throws IOException {
+        synchronized (lock) {
+            StringBuilder swap = pending;
+            pending = writing;
+            writing = swap;
+        }
+        
+        if (writing.length() > 0) {
+            writer.append(writing);
+            writer.flush();
+            writing.setLength(0);
+        }
+    }
+    
+    /**
+     * Writes out whatever is buffered and waits for the file to be closed.
+     */
+    public void close() {
+        closed = true;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public FileHandle getFile() {
+        return file;
+    }
+}
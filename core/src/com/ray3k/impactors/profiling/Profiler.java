@@ -0,0 +1,261 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.profiling;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.TimeUtils;
+import java.util.Locale;
+
+/**
+ * Times the phases of each frame and tick, and the act time of each entity
+ * class. Every timing feeds a {@link RollingHistogram}, and the totals of
+ * each frame can be streamed to a CSV file. While disabled, every call
+ * returns after a single check.
+ * @author Raymond
+ */
+public class Profiler {
+    public static final String CSV_PROPERTY = "impactors.profile.csv";
+    public static final int FRAME = 0;
+    public static final int TICK = 1;
+    public static final int DRAW = 2;
+    public static final int INTEGRATE = 3;
+    public static final int ACT = 4;
+    public static final int COLLIDE = 5;
+    public static final int ACT_END = 6;
+    public static final int COMPACT = 7;
+    public static final int SPRITES = 8;
+    public static final int PHASE_COUNT = 9;
+    public static final String[] PHASE_NAMES = {"frame", "tick", "draw", "integrate", "act", "collide", "act_end", "compact", "sprites"};
+    public static final int WINDOW = 600;
+    private boolean enabled;
+    private final long[] starts;
+    private final long[] frameTotals;
+    private final RollingHistogram[] histograms;
+    private final ObjectMap<Class<?>, ClassTimer> classTimers;
+    private final Array<ClassTimer> classTimerList;
+    private final ObjectIntMap<String> counts;
+    private final RollingHistogram renderCallHistogram;
+    private int renderCalls;
+    private int ticks;
+    private long frame;
+    private CsvStream csv;
+
+    public Profiler() {
+        starts = new long[PHASE_COUNT];
+        frameTotals = new long[PHASE_COUNT];
+        histograms = new RollingHistogram[PHASE_COUNT];
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            histograms[i] = new RollingHistogram(WINDOW);
+        }
+        classTimers = new ObjectMap<Class<?>, ClassTimer>();
+        classTimerList = new Array<ClassTimer>();
+        counts = new ObjectIntMap<String>();
+        renderCallHistogram = new RollingHistogram(WINDOW);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public void begin(int phase) {
+        if (enabled) {
+            starts[phase] = TimeUtils.nanoTime();
+        }
+    }
+    
+    public void end(int phase) {
+        if (enabled) {
+            long nanos = TimeUtils.nanoTime() - starts[phase];
+            histograms[phase].add(nanos);
+            frameTotals[phase] += nanos;
+            if (phase == TICK) {
+                ticks++;
+            }
+        }
+    }
+    
+    /**
+     * Adds to the time the class has spent acting this tick.
+     * @param type
+     * @param nanos 
+     */
+    public void addClassTime(Class<?> type, long nanos) {
+        ClassTimer timer = classTimers.get(type);
+        if (timer == null) {
+            timer = new ClassTimer("act." + type.getSimpleName());
+            classTimers.put(type, timer);
+            classTimerList.add(timer);
+        }
+        timer.tickTotal += nanos;
+        timer.acted = true;
+    }
+    
+    /**
+     * Closes the per class act times of the tick.
+     */
+    public void endClassTimes() {
+        for (int i = 0; i < classTimerList.size; i++) {
+            ClassTimer timer = classTimerList.get(i);
+            if (timer.acted) {
+                timer.histogram.add(timer.tickTotal);
+                timer.frameTotal += timer.tickTotal;
+                timer.tickTotal = 0;
+                timer.acted = false;
+            }
+        }
+    }
+    
+    /**
+     * @return the entity counts by type for the current frame, to be filled
+     * in by whatever owns the entities
+     */
+    public ObjectIntMap<String> getCounts() {
+        return counts;
+    }
+    
+    public void beginFrame() {
+        if (enabled) {
+            counts.clear();
+            begin(FRAME);
+        }
+    }
+    
+    /**
+     * @param renderCalls the number of batch flushes during the frame
+     */
+    public void endFrame(int renderCalls) {
+        if (enabled) {
+            end(FRAME);
+            this.renderCalls = renderCalls;
+            renderCallHistogram.add(renderCalls);
+            if (csv != null) {
+                writeFrame();
+            }
+            
+            for (int i = 0; i < PHASE_COUNT; i++) {
+                frameTotals[i] = 0;
+            }
+            for (int i = 0; i < classTimerList.size; i++) {
+                classTimerList.get(i).frameTotal = 0;
+            }
+            ticks = 0;
+            frame++;
+        }
+    }
+    
+    private void writeFrame() {
+        csv.row(frame, "ticks", ticks);
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            csv.row(frame, PHASE_NAMES[i], frameTotals[i]);
+        }
+        for (int i = 0; i < classTimerList.size; i++) {
+            ClassTimer timer = classTimerList.get(i);
+            if (timer.frameTotal > 0) {
+                csv.row(frame, timer.name, timer.frameTotal);
+            }
+        }
+        csv.row(frame, "render_calls", renderCalls);
+        for (ObjectIntMap.Entry<String> entry : counts.entries()) {
+            csv.row(frame, "count." + entry.key, entry.value);
+        }
+    }
+    
+    /**
+     * Starts streaming every frame to the file, replacing its contents.
+     * Enables the profiler.
+     * @param file 
+     */
+    public void streamTo(FileHandle file) {
+        stopStreaming();
+        csv = new CsvStream(file);
+        enabled = true;
+    }
+    
+    public void stopStreaming() {
+        if (csv != null) {
+            csv.close();
+            csv = null;
+        }
+    }
+    
+    public boolean isStreaming() {
+        return csv != null;
+    }
+    
+    public RollingHistogram getHistogram(int phase) {
+        return histograms[phase];
+    }
+    
+    /**
+     * Writes a table of p50, p95, p99 and max for every phase and entity
+     * class in microseconds, followed by the latest counts.
+     * @param builder 
+     */
+    public void describe(StringBuilder builder) {
+        builder.append(String.format(Locale.ROOT, "%-24s %8s %8s %8s %8s%n", "us", "p50", "p95", "p99", "max"));
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            describe(builder, PHASE_NAMES[i], histograms[i]);
+        }
+        for (int i = 0; i < classTimerList.size; i++) {
+            describe(builder, classTimerList.get(i).name, classTimerList.get(i).histogram);
+        }
+        
+        builder.append(String.format(Locale.ROOT, "render calls %d (p99 %d)%n", renderCalls, renderCallHistogram.percentile(.99f)));
+        for (ObjectIntMap.Entry<String> entry : counts.entries()) {
+            builder.append(entry.key).append(' ').append(entry.value).append('\n');
+        }
+    }
+    
+    private static void describe(StringBuilder builder, String name, RollingHistogram histogram) {
+        if (histogram.size() > 0) {
+            builder.append(String.format(Locale.ROOT, "%-24s %8.1f %8.1f %8.1f %8.1f%n", name,
+                    histogram.percentile(.5f) / 1000.0f, histogram.percentile(.95f) / 1000.0f,
+                    histogram.percentile(.99f) / 1000.0f, histogram.max() / 1000.0f));
+        }
+    }
+    
+    public void dispose() {
+        stopStreaming();
+    }
+    
+    private static class ClassTimer {
+        private final String name;
+        private final RollingHistogram histogram;
+        private long tickTotal;
+        private long frameTotal;
+        private boolean acted;
+
+        public ClassTimer(String name) {
+            this.name = name;
+            histogram = new RollingHistogram(WINDOW);
+        }
+    }
+}
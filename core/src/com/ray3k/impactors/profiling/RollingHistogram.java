@@ -0,0 +1,133 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.profiling;
+
+/**
+ * Keeps the last few hundred samples of a timing and answers percentile
+ * queries over them without sorting or allocating. Samples are counted in
+ * log-spaced buckets, eight per power of two, so percentiles are accurate
+ * to within about 12%.
+ * @author Raymond
+ */
+public class RollingHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = 64 * SUB_BUCKETS;
+    private final long[] samples;
+    private final int[] counts;
+    private int next;
+    private int size;
+    private long sum;
+
+    /**
+     * @param window how many of the most recent samples are kept
+     */
+    public RollingHistogram(int window) {
+        samples = new long[window];
+        counts = new int[BUCKET_COUNT];
+    }
+    
+    public void add(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        
+        if (size == samples.length) {
+            long oldest = samples[next];
+            counts[bucket(oldest)]--;
+            sum -= oldest;
+        } else {
+            size++;
+        }
+        
+        samples[next] = value;
+        counts[bucket(value)]++;
+        sum += value;
+        next = (next + 1) % samples.length;
+    }
+    
+    /**
+     * @param fraction between 0 and 1, for example .99
+     * @return the upper bound of the bucket holding that fraction of the
+     * samples, or 0 when empty
+     */
+    public long percentile(float fraction) {
+        if (size == 0) {
+            return 0;
+        }
+        
+        int target = Math.max(1, (int) Math.ceil(fraction * size));
+        int seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(bucketLimit(i), max());
+            }
+        }
+        return max();
+    }
+    
+    public long max() {
+        long max = 0;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, samples[i]);
+        }
+        return max;
+    }
+    
+    public long mean() {
+        return size == 0 ? 0 : sum / size;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public void clear() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = 0;
+        }
+        next = 0;
+        size = 0;
+        sum = 0;
+    }
+    
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+    
+    private static long bucketLimit(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub) << shift) + (1L << shift) - 1;
+    }
+}
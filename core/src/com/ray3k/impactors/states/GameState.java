@@ -24,29 +24,53 @@
 package com.ray3k.impactors.states;
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.InputMultiplexer;
-import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Align;
+import com.badlogic.gdx.utils.Pool;
+import com.badlogic.gdx.utils.TimeUtils;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
+import com.ray3k.impactors.CollisionDispatcher;
+import com.ray3k.impactors.CollisionHandler;
 import com.ray3k.impactors.Core;
 import com.ray3k.impactors.Entity;
 import com.ray3k.impactors.EntityManager;
 import com.ray3k.impactors.InputManager;
+import com.ray3k.impactors.RenderQueue;
+import com.ray3k.impactors.Replay;
 import com.ray3k.impactors.State;
+import com.ray3k.impactors.audio.AudioManager;
+import com.ray3k.impactors.ecs.EcsWorld;
 import com.ray3k.impactors.entities.AlienEntity;
 import com.ray3k.impactors.entities.AsteroidEntity;
+import com.ray3k.impactors.entities.BulletEntity;
+import com.ray3k.impactors.entities.DustEntity;
+import com.ray3k.impactors.entities.Enemy;
+import com.ray3k.impactors.entities.EntityTypes;
 import com.ray3k.impactors.entities.PlayerEntity;
+import com.ray3k.impactors.events.EntityDestroyedEvent;
+import com.ray3k.impactors.events.EventListener;
+import com.ray3k.impactors.events.EventQueue;
+import com.ray3k.impactors.events.ScoreAwardedEvent;
+import com.ray3k.impactors.events.SoundRequestedEvent;
+import com.ray3k.impactors.profiling.Profiler;
 
 public class GameState extends State {
+    public static final String ECS_PROPERTY = "impactors.ecs";
+    public static final String RECORD_PROPERTY = "impactors.record";
+    public static final String REPLAY_PROPERTY = "impactors.replay";
     private String selectedCharacter;
     private int score;
     private static int highscore = 0;
@@ -58,20 +82,67 @@ public class GameState extends State {
     private Table table;
     private Label scoreLabel;
     private EntityManager entityManager;
+    private EcsWorld ecsWorld;
+    private boolean ecs;
     private int difficulty;
     private final static float ALIEN_DELAY = 20.0f;
+    private final static int ASTEROIDS_PER_LARGE = 13;
+    private final static int DUSTS_PER_LARGE = 27;
+    private final static int BULLETS_PREWARM = 32;
     private float alienTimer;
     public static GameState gameState;
+    private EventQueue events;
+    private int pendingScore;
+    private final RandomXS128 random = new RandomXS128();
+    private final RandomXS128 sessionRandom = new RandomXS128();
+    private long seed;
+    private boolean seedSet;
+    private int tick;
+    private Replay recording;
+    private boolean recordingSaved;
+    private FileHandle recordFile;
+    private Replay replay;
+    private int divergedTick;
+    private final static long OVERLAY_REFRESH = 500000000L;
+    private Label profileLabel;
+    private boolean overlayVisible;
+    private long overlayRefreshTime;
+    private final StringBuilder overlayText = new StringBuilder();
+    private final com.badlogic.gdx.utils.StringBuilder scoreText = new com.badlogic.gdx.utils.StringBuilder();
     
     public GameState(Core core) {
         super(core);
         gameState = this;
+        ecs = Boolean.getBoolean(ECS_PROPERTY);
+        
+        String path = System.getProperty(RECORD_PROPERTY);
+        if (path != null) {
+            recordFile = Gdx.files.absolute(path);
+        }
+        
+        path = System.getProperty(REPLAY_PROPERTY);
+        if (path != null) {
+            replay = Replay.read(Gdx.files.absolute(path));
+        }
     }
     
     @Override
     public void start() {
         score = 0;
         
+        if (replay != null) {
+            seed = replay.getSeed();
+            ecs = replay.isEcs();
+        } else if (!seedSet) {
+            seed = sessionRandom.nextLong();
+        }
+        seedSet = false;
+        random.setSeed(seed);
+        tick = 0;
+        divergedTick = -1;
+        recording = new Replay(seed, ecs, Gdx.graphics.getWidth(), Gdx.graphics.getHeight(), getCore().getTickRate());
+        recordingSaved = false;
+        
         inputManager = new InputManager();
         
         camera = new OrthographicCamera();
@@ -93,21 +164,153 @@ public class GameState extends State {
         table.setFillParent(true);
         stage.addActor(table);
         
-        entityManager = new EntityManager();
+        events = new EventQueue();
+        subscribeEvents();
         
         createStageElements();
         
-        PlayerEntity player = new PlayerEntity(this);
-        player.setPosition(Gdx.graphics.getWidth() / 2.0f, Gdx.graphics.getHeight() / 2.0f);
+        if (ecs) {
+            entityManager = null;
+            ecsWorld = new EcsWorld(this);
+            ecsWorld.setWorldSize(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+            ecsWorld.createPlayer(Gdx.graphics.getWidth() / 2.0f, Gdx.graphics.getHeight() / 2.0f);
+        } else {
+            ecsWorld = null;
+            entityManager = new EntityManager();
+            entityManager.setProfiler(getCore().getProfiler());
+            entityManager.setWorldSize(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+            registerCollisionHandlers();
+            registerPools();
+            
+            PlayerEntity player = entityManager.addEntity(new PlayerEntity(this));
+            player.setPosition(Gdx.graphics.getWidth() / 2.0f, Gdx.graphics.getHeight() / 2.0f);
+        }
         
         difficulty = 3;
+        prewarmPools();
         spawnAsteroids(difficulty, AsteroidEntity.Type.LARGE);
         
-        getSound("intro").play();
+        getAudioManager().play(getAudioManager().getId("intro"));
         
         alienTimer = ALIEN_DELAY;
     }
     
+    /**
+     * Score and sound requests are gathered while the tick runs and applied
+     * once it ends, so a cascade of hits costs one label update. Sounds go to
+     * the {@link AudioManager} queue, which coalesces repeats.
+     */
+    private void subscribeEvents() {
+        pendingScore = 0;
+        
+        events.subscribe(ScoreAwardedEvent.class, new EventListener<ScoreAwardedEvent>() {
+            @Override
+            public void handle(ScoreAwardedEvent event) {
+                pendingScore += event.getPoints();
+            }
+        });
+        
+        events.subscribe(SoundRequestedEvent.class, new EventListener<SoundRequestedEvent>() {
+            @Override
+            public void handle(SoundRequestedEvent event) {
+                getAudioManager().play(event.getSound());
+            }
+        });
+    }
+    
+    private void applyEvents() {
+        events.drain();
+        
+        if (pendingScore != 0) {
+            addScore(pendingScore);
+            pendingScore = 0;
+        }
+    }
+    
+    private void registerCollisionHandlers() {
+        CollisionDispatcher dispatcher = entityManager.getCollisionDispatcher();
+        
+        dispatcher.register(EntityTypes.ASTEROID, EntityTypes.BULLET, new CollisionHandler() {
+            @Override
+            public void collide(Entity entity, Entity other) {
+                ((AsteroidEntity) entity).hit((BulletEntity) other);
+            }
+        });
+        
+        dispatcher.register(EntityTypes.ALIEN, EntityTypes.BULLET, new CollisionHandler() {
+            @Override
+            public void collide(Entity entity, Entity other) {
+                ((AlienEntity) entity).hit((BulletEntity) other);
+            }
+        });
+        
+        dispatcher.register(EntityTypes.ALIEN, EntityTypes.ASTEROID, new CollisionHandler() {
+            @Override
+            public void collide(Entity entity, Entity other) {
+                ((AlienEntity) entity).hit((AsteroidEntity) other);
+            }
+        });
+        
+        dispatcher.register(EntityTypes.PLAYER, EntityTypes.BULLET, new CollisionHandler() {
+            @Override
+            public void collide(Entity entity, Entity other) {
+                ((PlayerEntity) entity).hit((BulletEntity) other);
+            }
+        });
+        
+        CollisionHandler playerEnemyHandler = new CollisionHandler() {
+            @Override
+            public void collide(Entity entity, Entity other) {
+                ((PlayerEntity) entity).hit((Enemy) other);
+            }
+        };
+        dispatcher.register(EntityTypes.PLAYER, EntityTypes.ASTEROID, playerEnemyHandler);
+        dispatcher.register(EntityTypes.PLAYER, EntityTypes.ALIEN, playerEnemyHandler);
+    }
+    
+    private void registerPools() {
+        entityManager.registerPool(AsteroidEntity.class, new Pool<AsteroidEntity>() {
+            @Override
+            protected AsteroidEntity newObject() {
+                return new AsteroidEntity(GameState.this);
+            }
+        });
+        
+        entityManager.registerPool(BulletEntity.class, new Pool<BulletEntity>() {
+            @Override
+            protected BulletEntity newObject() {
+                return new BulletEntity(GameState.this);
+            }
+        });
+        
+        entityManager.registerPool(DustEntity.class, new Pool<DustEntity>() {
+            @Override
+            protected DustEntity newObject() {
+                return new DustEntity(GameState.this);
+            }
+        });
+    }
+    
+    /**
+     * Makes sure a whole wave can split down to dust without the pools
+     * having to allocate mid-fight. Nothing spawns without a player, while
+     * the difficulty still climbs every tick, so the pools are left alone.
+     */
+    private void prewarmPools() {
+        if (!findPlayerPosition(playerPosition)) {
+            return;
+        }
+        
+        if (ecsWorld != null) {
+            ecsWorld.prewarm(difficulty * ASTEROIDS_PER_LARGE, difficulty * DUSTS_PER_LARGE, BULLETS_PREWARM);
+            return;
+        }
+        
+        entityManager.prewarm(AsteroidEntity.class, difficulty * ASTEROIDS_PER_LARGE);
+        entityManager.prewarm(DustEntity.class, difficulty * DUSTS_PER_LARGE);
+        entityManager.prewarm(BulletEntity.class, BULLETS_PREWARM);
+    }
+    
     private void createStageElements() {
         Table root = new Table();
         root.setFillParent(true);
@@ -115,38 +318,99 @@ public class GameState extends State {
         
         scoreLabel = new Label("0", skin);
         root.add(scoreLabel).expandY().padTop(25.0f).top();
+        
+        Table overlay = new Table();
+        overlay.setFillParent(true);
+        overlay.top().left().pad(10.0f);
+        stage.addActor(overlay);
+        
+        profileLabel = new Label("", skin);
+        profileLabel.setAlignment(Align.topLeft);
+        profileLabel.setVisible(overlayVisible);
+        overlay.add(profileLabel);
+    }
+    
+    /**
+     * Toggled with F3. While shown, the profiler runs and the label is
+     * refreshed twice a second with its percentiles and the entity counts.
+     */
+    private void updateOverlay() {
+        Profiler profiler = getCore().getProfiler();
+        
+        if (Gdx.input.isKeyJustPressed(Keys.F3)) {
+            overlayVisible = !overlayVisible;
+            profileLabel.setVisible(overlayVisible);
+            profiler.setEnabled(overlayVisible || profiler.isStreaming());
+        }
+        
+        if (profiler.isEnabled()) {
+            if (ecsWorld != null) {
+                ecsWorld.census(profiler.getCounts());
+            } else {
+                entityManager.census(profiler.getCounts());
+            }
+        }
+        
+        if (overlayVisible && TimeUtils.timeSinceNanos(overlayRefreshTime) >= OVERLAY_REFRESH) {
+            overlayRefreshTime = TimeUtils.nanoTime();
+            overlayText.setLength(0);
+            profiler.describe(overlayText);
+            profileLabel.setText(overlayText);
+        }
     }
     
     @Override
-    public void draw(SpriteBatch spriteBatch, float delta) {
+    public void draw(SpriteBatch spriteBatch, float alpha) {
+        updateOverlay();
+        
         Gdx.gl.glClearColor(0.0f, 0.0f, 0.0f, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
         
         camera.update();
         spriteBatch.setProjectionMatrix(camera.combined);
         spriteBatch.begin();
-        entityManager.draw(spriteBatch, delta);
+        if (ecsWorld != null) {
+            ecsWorld.getRenderQueue().setView(camera);
+            ecsWorld.draw(spriteBatch, alpha);
+        } else {
+            entityManager.getRenderQueue().setView(camera);
+            entityManager.draw(spriteBatch, alpha);
+        }
         spriteBatch.end();
         
         stage.draw();
     }
+    
+    /**
+     * Records the sprites of the world without drawing them.
+     * @param queue
+     * @param alpha fraction of a tick elapsed since the last one
+     */
+    public void record(RenderQueue queue, float alpha) {
+        if (ecsWorld != null) {
+            ecsWorld.record(queue, alpha);
+        } else {
+            entityManager.record(queue, alpha);
+        }
+    }
 
     @Override
     public void act(float delta) {
-        entityManager.act(delta);
+        int frame = replay != null ? replay.getFrame(tick) : inputManager.capture();
+        recording.addFrame(frame);
+        inputManager.apply(frame);
         
-        stage.act(delta);
-        
-        boolean createAsteroids = true;
-        for (Entity entity : entityManager.getEntities()) {
-            if (entity instanceof AsteroidEntity) {
-                createAsteroids = false;
-                break;
-            }
+        if (ecsWorld != null) {
+            ecsWorld.act(delta);
+        } else {
+            entityManager.act(delta);
         }
         
-        if (createAsteroids) {
+        stage.act(delta);
+        
+        if (countAsteroids() == 0) {
             difficulty++;
+            prewarmPools();
             spawnAsteroids(difficulty, AsteroidEntity.Type.LARGE);
         }
         
@@ -155,20 +419,72 @@ public class GameState extends State {
             alienTimer = ALIEN_DELAY;
             spawnAlien();
         }
+        
+        applyEvents();
+        
+        tick++;
+        if (tick % Replay.CHECKSUM_INTERVAL == 0) {
+            checkTick();
+        }
+    }
+    
+    /**
+     * Records the world checksum and, when replaying, compares it with the
+     * recorded one. The first mismatch is logged and kept.
+     */
+    private void checkTick() {
+        int checksum = checksum();
+        int index = recording.getChecksumCount();
+        recording.addChecksum(checksum);
+        
+        if (replay != null && divergedTick == -1 && index < replay.getChecksumCount() && replay.getChecksum(index) != checksum) {
+            divergedTick = tick;
+            Gdx.app.error(GameState.class.getName(), "Replay diverged by tick " + tick);
+        }
+    }
+    
+    /**
+     * @return a hash of the score and of the type and position of every
+     * entity
+     */
+    public int checksum() {
+        int hash = ecsWorld != null ? ecsWorld.checksum() : entityManager.checksum();
+        return 31 * hash + score;
+    }
+
+    /**
+     * Writes the input log once per game, either when the game ends or when
+     * the application closes during it.
+     */
+    private void saveRecording() {
+        if (recording != null && !recordingSaved && recordFile != null && replay == null) {
+            recording.write(recordFile);
+        }
+        recordingSaved = true;
     }
 
     @Override
     public void dispose() {
+        saveRecording();
     }
 
     @Override
     public void stop() {
+        saveRecording();
         stage.dispose();
+        if (ecsWorld != null) {
+            ecsWorld.dispose();
+        }
     }
     
     @Override
     public void resize(int width, int height) {
         viewport.update(width, height);
+        if (ecsWorld != null) {
+            ecsWorld.setWorldSize(width, height);
+        } else {
+            entityManager.setWorldSize(width, height);
+        }
         camera.position.set(camera.viewportWidth / 2, camera.viewportHeight / 2, 0);
         stage.getViewport().update(width, height, true);
     }
@@ -181,10 +497,118 @@ public class GameState extends State {
         this.selectedCharacter = selectedCharacter;
     }
 
+    /**
+     * @return the entity manager, or null when the game runs on the
+     * component engine
+     */
     public EntityManager getEntityManager() {
         return entityManager;
     }
 
+    public EcsWorld getEcsWorld() {
+        return ecsWorld;
+    }
+
+    public boolean isEcs() {
+        return ecs;
+    }
+
+    /**
+     * Selects the component engine instead of the entity manager for the
+     * next game started. Defaults to the {@value #ECS_PROPERTY} system
+     * property.
+     * @param ecs 
+     */
+    public void setEcs(boolean ecs) {
+        this.ecs = ecs;
+    }
+
+    /**
+     * Seeds the next game started. The games after it draw their seeds from
+     * a session generator seeded here as well, so a run of several games
+     * repeats. Without a seed the session generator starts from a random
+     * seed.
+     * @param seed 
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        seedSet = true;
+        sessionRandom.setSeed(~seed);
+    }
+
+    /**
+     * @return the seed of the current game
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    public RandomXS128 getRandom() {
+        return random;
+    }
+    
+    public float random(float range) {
+        return random.nextFloat() * range;
+    }
+    
+    public float random(float start, float end) {
+        return start + random.nextFloat() * (end - start);
+    }
+    
+    public int randomSign() {
+        return 1 | random.nextInt() >> 31;
+    }
+    
+    public <T> T random(Array<T> items) {
+        return items.size == 0 ? null : items.get(random.nextInt(items.size));
+    }
+
+    /**
+     * @return the number of ticks the current game has run
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * @return the input log of the current game so far
+     */
+    public Replay getRecording() {
+        return recording;
+    }
+
+    /**
+     * Saves each game's input log to the file when it ends. Every game
+     * overwrites the file, so it holds the last game played. Defaults to
+     * the {@value #RECORD_PROPERTY} system property.
+     * @param recordFile the file, or null to not save
+     */
+    public void setRecordFile(FileHandle recordFile) {
+        this.recordFile = recordFile;
+    }
+
+    public Replay getReplay() {
+        return replay;
+    }
+
+    /**
+     * Plays games back from the log instead of the keyboard, using its seed
+     * and engine. Defaults to the {@value #REPLAY_PROPERTY} system property.
+     * The window should match the recorded size for the world to match.
+     * @param replay the log, or null to play live
+     */
+    public void setReplay(Replay replay) {
+        this.replay = replay;
+    }
+
+    /**
+     * @return the tick at which the replay was first found to differ from
+     * the recording, or -1
+     */
+    public int getDivergedTick() {
+        return divergedTick;
+    }
+
     public InputManager getInputManager() {
         return inputManager;
     }
@@ -195,7 +619,7 @@ public class GameState extends State {
 
     public void setScore(int score) {
         this.score = score;
-        scoreLabel.setText(Integer.toString(score));
+        updateScoreLabel();
         if (score > highscore) {
             highscore = score;
         }
@@ -203,85 +627,127 @@ public class GameState extends State {
     
     public void addScore(int score) {
         this.score += score;
-        scoreLabel.setText(Integer.toString(this.score));
+        updateScoreLabel();
         if (this.score > highscore) {
             highscore = this.score;
         }
     }
     
+    /**
+     * Formats the score into a reused builder, which the label copies, so
+     * scoring does not allocate a string.
+     */
+    private void updateScoreLabel() {
+        scoreText.setLength(0);
+        scoreText.append(score);
+        scoreLabel.setText(scoreText);
+    }
+    
     Vector2 temp = new Vector2();
+    private final Vector2 playerPosition = new Vector2();
     
-    public void spawnAsteroids(int number, AsteroidEntity.Type type) {
-        PlayerEntity player = null;
-        
-        for (Entity entity : entityManager.getEntities()) {
-            if (entity instanceof PlayerEntity) {
-                player = (PlayerEntity) entity;
-                break;
-            }
+    private int countAsteroids() {
+        if (ecsWorld != null) {
+            return ecsWorld.countAsteroids();
+        } else {
+            return entityManager.count(AsteroidEntity.class);
+        }
+    }
+    
+    private boolean findPlayerPosition(Vector2 position) {
+        if (ecsWorld != null) {
+            return ecsWorld.getPlayerPosition(position);
         }
         
+        PlayerEntity player = entityManager.first(PlayerEntity.class);
         if (player != null) {
-            for (int i = 0; i < number; i++) {
-                temp.set(400, 0);
-                temp.rotate(MathUtils.random(360.0f));
+            position.set(player.getX(), player.getY());
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Picks a point 400 pixels from the player in a random direction, wrapped
+     * back into the screen. The result is left in temp.
+     */
+    private void pickSpawnPoint() {
+        temp.set(400, 0);
+        temp.rotate(random(360.0f));
+        
+        float x = playerPosition.x + temp.x;
+        float y = playerPosition.y + temp.y;
 
-                AsteroidEntity ast = new AsteroidEntity(this, type);
-                float x = player.getX() + temp.x;
-                float y = player.getY() + temp.y;
-                
-                if (x < 0) {
-                    x = Gdx.graphics.getWidth() + x;
-                } else if (x > Gdx.graphics.getWidth()) {
-                    x -= Gdx.graphics.getWidth();
-                }
+        if (x < 0) {
+            x = Gdx.graphics.getWidth() + x;
+        } else if (x > Gdx.graphics.getWidth()) {
+            x -= Gdx.graphics.getWidth();
+        }
+
+        if (y < 0) {
+            y = Gdx.graphics.getHeight() + y;
+        } else if (y > Gdx.graphics.getHeight()) {
+            y -= Gdx.graphics.getHeight();
+        }
+        
+        temp.set(x, y);
+    }
+    
+    public void spawnAsteroids(int number, AsteroidEntity.Type type) {
+        if (findPlayerPosition(playerPosition)) {
+            for (int i = 0; i < number; i++) {
+                pickSpawnPoint();
                 
-                if (y < 0) {
-                    y = Gdx.graphics.getHeight() + y;
-                } else if (y > Gdx.graphics.getHeight()) {
-                    y -= Gdx.graphics.getHeight();
+                if (ecsWorld != null) {
+                    ecsWorld.createAsteroid(type, temp.x, temp.y);
+                } else {
+                    AsteroidEntity ast = entityManager.obtain(AsteroidEntity.class);
+                    ast.setType(type);
+                    entityManager.addEntity(ast);
+                    ast.setPosition(temp.x, temp.y);
                 }
-                
-                ast.setPosition(x, y);
             }
         }
     }
     
     public void spawnAlien() {
-        PlayerEntity player = null;
-        
-        for (Entity entity : entityManager.getEntities()) {
-            if (entity instanceof PlayerEntity) {
-                player = (PlayerEntity) entity;
-                break;
+        if (findPlayerPosition(playerPosition)) {
+            pickSpawnPoint();
+            
+            if (ecsWorld != null) {
+                ecsWorld.createAlien(temp.x, temp.y);
+            } else {
+                AlienEntity alien = entityManager.addEntity(new AlienEntity(this));
+                alien.setPosition(temp.x, temp.y);
+                alien.clearSpawnZone();
             }
         }
-        
-        if (player != null) {
-            temp.set(400, 0);
-            temp.rotate(MathUtils.random(360.0f));
-
-            AlienEntity alien = new AlienEntity(this);
-            float x = player.getX() + temp.x;
-            float y = player.getY() + temp.y;
-
-            if (x < 0) {
-                x = Gdx.graphics.getWidth() + x;
-            } else if (x > Gdx.graphics.getWidth()) {
-                x -= Gdx.graphics.getWidth();
-            }
-
-            if (y < 0) {
-                y = Gdx.graphics.getHeight() + y;
-            } else if (y > Gdx.graphics.getHeight()) {
-                y -= Gdx.graphics.getHeight();
-            }
-
-            alien.setPosition(x, y);
-        }
     }
     
-    public Sound getSound(String name) {
-        return getCore().getSounds().get(name);
+    public EventQueue getEvents() {
+        return events;
+    }
+    
+    public void awardScore(int points) {
+        events.post(ScoreAwardedEvent.class).setPoints(points);
+    }
+    
+    /**
+     * @param sound an id from {@link AudioManager#getId(String)}
+     */
+    public void requestSound(int sound) {
+        events.post(SoundRequestedEvent.class).setSound(sound);
+    }
+    
+    public void reportDestroyed(Entity entity) {
+        events.post(EntityDestroyedEvent.class).set(entity);
+    }
+    
+    public void reportDestroyed(Class<? extends Entity> type, float x, float y) {
+        events.post(EntityDestroyedEvent.class).set(type, x, y);
+    }
+    
+    public AudioManager getAudioManager() {
+        return getCore().getAudioManager();
     }
 }
\ No newline at end of file
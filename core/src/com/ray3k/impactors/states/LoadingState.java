@@ -2,7 +2,6 @@ package com.ray3k.impactors.states;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetManager;
-import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Pixmap;
@@ -25,6 +24,7 @@ import com.badlogic.gdx.utils.JsonReader;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.Scaling;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
+import com.ray3k.impactors.AtlasCache;
 import com.ray3k.impactors.Core;
 import static com.ray3k.impactors.Core.DATA_PATH;
 import com.ray3k.impactors.State;
@@ -73,7 +73,7 @@ public class LoadingState extends State {
     }
 
     @Override
-    public void draw(SpriteBatch spriteBatch, float delta) {
+    public void draw(SpriteBatch spriteBatch, float alpha) {
         stage.draw();
     }
 
@@ -91,11 +91,15 @@ public class LoadingState extends State {
                         
                         JsonReader jsonReader = new JsonReader();
                         JsonValue json = jsonReader.parse(Gdx.files.local(DATA_PATH + "/sfx/sounds.json"));
-                        for (JsonValue val : json.get("sounds").iterator()) {
-                            getCore().getSounds().put(val.name, getCore().getAssetManager().get(DATA_PATH + "/sfx/" + val.asString(), Sound.class));
-                        }
+                        getCore().getAudioManager().load(json.get("sounds"), Gdx.files.local(DATA_PATH + "/sfx"));
                         
-                        packPixmaps();
+                        if (getCore().getAssetManager().isLoaded(Core.ATLAS_PATH)) {
+                            getCore().setAtlas(getCore().getAssetManager().get(Core.ATLAS_PATH, TextureAtlas.class));
+                        } else if (getCore().getAssetManager().isLoaded(AtlasCache.ATLAS_PATH)) {
+                            getCore().setAtlas(getCore().getAssetManager().get(AtlasCache.ATLAS_PATH, TextureAtlas.class));
+                        } else {
+                            packPixmaps();
+                        }
                         getCore().getStateManager().loadState(nextState);
                     }
                     return true;
@@ -146,6 +150,7 @@ public class LoadingState extends State {
         
         TextureAtlas atlas = getCore().getPixmapPacker().generateTextureAtlas(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear, false);
         getCore().setAtlas(atlas);
+        getCore().getAtlasCache().save(atlas, getCore().getPixmapPacker());
     }
 
     @Override
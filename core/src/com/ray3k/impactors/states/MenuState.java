@@ -24,7 +24,6 @@
 package com.ray3k.impactors.states;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
@@ -89,7 +88,7 @@ public class MenuState extends State {
         imageTextButton.addListener(new ChangeListener() {
             @Override
             public void changed(ChangeListener.ChangeEvent event, Actor actor) {
-                getCore().getAssetManager().get(Core.DATA_PATH + "/sfx/menu.wav", Sound.class).play();
+                getCore().getAudioManager().play(getCore().getAudioManager().getId("menu"));
                 getCore().getStateManager().loadState("game");
             }
         });
@@ -101,14 +100,14 @@ public class MenuState extends State {
         imageTextButton.addListener(new ChangeListener() {
             @Override
             public void changed(ChangeListener.ChangeEvent event, Actor actor) {
-                getCore().getAssetManager().get(Core.DATA_PATH + "/sfx/menu.wav", Sound.class).play();
+                getCore().getAudioManager().play(getCore().getAudioManager().getId("menu"));
                 Gdx.app.exit();
             }
         });
     }
     
     @Override
-    public void draw(SpriteBatch spriteBatch, float delta) {
+    public void draw(SpriteBatch spriteBatch, float alpha) {
         Gdx.gl.glClearColor(0, 0, 0, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
         stage.draw();
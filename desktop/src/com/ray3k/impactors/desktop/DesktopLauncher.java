@@ -2,13 +2,43 @@ package com.ray3k.impactors.desktop;
 
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
+import com.badlogic.gdx.files.FileHandle;
 import com.ray3k.impactors.Core;
+import com.ray3k.impactors.Replay;
+import com.ray3k.impactors.profiling.Profiler;
+import com.ray3k.impactors.states.GameState;
 
 public class DesktopLauncher {
 	public static void main (String[] arg) {
+		Core core = new Core();
+		Replay replay = null;
+		System.setProperty(GameState.RECORD_PROPERTY, "last-game.replay");
+		for (String argument : arg) {
+			if (argument.equals("--ecs")) {
+				System.setProperty(GameState.ECS_PROPERTY, "true");
+			} else if (argument.startsWith("--tick-rate=")) {
+				core.setTickRate(Float.parseFloat(argument.substring("--tick-rate=".length())));
+			} else if (argument.startsWith("--profile-csv=")) {
+				System.setProperty(Profiler.CSV_PROPERTY, argument.substring("--profile-csv=".length()));
+			} else if (argument.startsWith("--record=")) {
+				System.setProperty(GameState.RECORD_PROPERTY, argument.substring("--record=".length()));
+			} else if (argument.equals("--no-record")) {
+				System.clearProperty(GameState.RECORD_PROPERTY);
+			} else if (argument.startsWith("--replay=")) {
+				String path = argument.substring("--replay=".length());
+				replay = Replay.read(new FileHandle(path));
+				System.setProperty(GameState.REPLAY_PROPERTY, path);
+			}
+		}
+		
 		LwjglApplicationConfiguration config = new LwjglApplicationConfiguration();
                 config.width = 800;
                 config.height = 800;
-		new LwjglApplication(new Core(), config);
+		if (replay != null) {
+			config.width = replay.getWidth();
+			config.height = replay.getHeight();
+			core.setTickRate(replay.getTickRate());
+		}
+		new LwjglApplication(core, config);
 	}
 }
@@ -0,0 +1,133 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.headless;
+
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.files.FileHandle;
+import com.ray3k.impactors.Core;
+import com.ray3k.impactors.Replay;
+
+/**
+ * Runs the simulation without a window, GPU or audio. Accepts --ticks=N,
+ * --speed=X (multiple of real time, 0 for as fast as possible),
+ * --tick-rate=N, --seed=N, --width=N, --height=N, --ecs, --record=FILE,
+ * --replay=FILE, --profile, --profile-csv=FILE, --render-hash,
+ * --check-narrowphase, --compare-engines and --alloc-check[=BYTES].
+ * The allocation check fails the run when steady state ticks allocate more
+ * than BYTES on average, {@value #ALLOCATION_BUDGET} by default. The engine
+ * comparison runs the ticks on the entity manager and then on the component
+ * engine, and fails the run unless every tick's world checksum and every
+ * game's end tick and score agree. Both checks seed the game with 1 unless a
+ * seed is given, so runs are comparable. A seed also fixes the seeds of the
+ * games that follow the first, so a seeded run repeats on the same engine.
+ * The engine comparison is what shows that both engines play it alike.
+ * --record keeps only the last game, as each game overwrites the file. A
+ * replay sets the size, tick rate and engine from the log and runs for as
+ * many ticks as were recorded.
+ * @author Raymond
+ */
+public class HeadlessLauncher {
+    public static final long ALLOCATION_BUDGET = 32;
+    
+    public static void main(String[] arg) {
+        Core core = new Core();
+        SimulationRunner runner = new SimulationRunner(core, new PatrolScript());
+        int width = 800;
+        int height = 800;
+        Replay replay = null;
+        boolean allocationCheck = false;
+        boolean engineComparison = false;
+        boolean ecs = false;
+        boolean seeded = false;
+        
+        for (String argument : arg) {
+            if (argument.equals("--ecs")) {
+                runner.setEcs(true);
+                ecs = true;
+            } else if (argument.startsWith("--ticks=")) {
+                runner.setMaxTicks(Long.parseLong(value(argument)));
+            } else if (argument.startsWith("--speed=")) {
+                runner.setSpeed(Float.parseFloat(value(argument)));
+            } else if (argument.startsWith("--tick-rate=")) {
+                core.setTickRate(Float.parseFloat(value(argument)));
+            } else if (argument.startsWith("--seed=")) {
+                runner.setSeed(Long.parseLong(value(argument)));
+                seeded = true;
+            } else if (argument.startsWith("--width=")) {
+                width = Integer.parseInt(value(argument));
+            } else if (argument.startsWith("--height=")) {
+                height = Integer.parseInt(value(argument));
+            } else if (argument.equals("--alloc-check")) {
+                runner.setAllocationBudget(ALLOCATION_BUDGET);
+                allocationCheck = true;
+            } else if (argument.startsWith("--alloc-check=")) {
+                runner.setAllocationBudget(Long.parseLong(value(argument)));
+                allocationCheck = true;
+            } else if (argument.equals("--check-narrowphase")) {
+                runner.setCheckingNarrowphase(true);
+            } else if (argument.equals("--compare-engines")) {
+                runner.setComparingEngines(true);
+                engineComparison = true;
+            } else if (argument.equals("--render-hash")) {
+                runner.setRenderHashing(true);
+            } else if (argument.equals("--profile")) {
+                runner.setProfiling(true);
+            } else if (argument.startsWith("--profile-csv=")) {
+                runner.setProfileFile(new FileHandle(value(argument)));
+            } else if (argument.startsWith("--record=")) {
+                runner.setRecordFile(new FileHandle(value(argument)));
+            } else if (argument.startsWith("--replay=")) {
+                replay = Replay.read(new FileHandle(value(argument)));
+            } else {
+                System.err.println("Unknown argument: " + argument);
+                System.exit(1);
+            }
+        }
+        if (engineComparison && (ecs || replay != null)) {
+            System.err.println("--compare-engines runs both engines and cannot be combined with --ecs or --replay");
+            System.exit(1);
+        }
+        if ((allocationCheck || engineComparison) && !seeded) {
+            runner.setSeed(1);
+        }
+        if (replay != null) {
+            width = replay.getWidth();
+            height = replay.getHeight();
+            core.setTickRate(replay.getTickRate());
+            runner.setEcs(replay.isEcs());
+            runner.setMaxTicks(replay.getTickCount());
+            runner.setReplay(replay);
+        }
+        runner.setSize(width, height);
+        
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.renderInterval = 0.0f;
+        new HeadlessApplication(runner, config);
+    }
+    
+    private static String value(String argument) {
+        return argument.substring(argument.indexOf('=') + 1);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.headless;
+
+import com.badlogic.gdx.graphics.GL20;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+
+/**
+ * A GL20 that does nothing, so textures, sprite batches and stages can be
+ * created without a GPU. Object names are handed out from a counter and
+ * every shader and program reports that it compiled and linked.
+ * @author Raymond
+ */
+public final class NullGL20 {
+    private NullGL20() {
+    }
+    
+    public static GL20 create() {
+        return (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[] {GL20.class}, new Handler());
+    }
+    
+    private static class Handler implements InvocationHandler {
+        private int nextName = 1;
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            
+            if (name.equals("glGetShaderiv") || name.equals("glGetProgramiv")) {
+                IntBuffer params = (IntBuffer) args[2];
+                params.put(params.position(), GL20.GL_TRUE);
+            } else if (name.equals("glGetIntegerv")) {
+                IntBuffer params = (IntBuffer) args[1];
+                params.put(params.position(), 4096);
+            }
+            
+            Class<?> type = method.getReturnType();
+            if (type == int.class) {
+                return name.startsWith("glGen") || name.startsWith("glCreate") ? nextName++ : 0;
+            } else if (type == boolean.class) {
+                return false;
+            } else if (type == float.class) {
+                return 0.0f;
+            } else if (type == String.class) {
+                return "";
+            } else {
+                return null;
+            }
+        }
+    }
+}
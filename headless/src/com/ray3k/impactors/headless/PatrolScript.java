@@ -0,0 +1,46 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.headless;
+
+import com.badlogic.gdx.Input.Keys;
+
+/**
+ * Flies in loops while firing steadily. Follows a fixed pattern so runs
+ * only differ by the game's own randomness.
+ * @author Raymond
+ */
+public class PatrolScript implements InputScript {
+    private static final int TURN_PERIOD = 180;
+    private static final int TURN_TICKS = 60;
+    private static final int THRUST_PERIOD = 360;
+    private static final int THRUST_TICKS = 90;
+    private static final int FIRE_PERIOD = 8;
+
+    @Override
+    public void step(int tick, ScriptedInput input) {
+        input.hold(Keys.LEFT, tick % TURN_PERIOD < TURN_TICKS);
+        input.hold(Keys.UP, tick % THRUST_PERIOD >= TURN_TICKS && tick % THRUST_PERIOD < TURN_TICKS + THRUST_TICKS);
+        input.hold(Keys.SPACE, tick % FIRE_PERIOD == 0);
+    }
+}
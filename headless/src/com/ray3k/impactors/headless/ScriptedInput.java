@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.headless;
+
+import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.backends.headless.mock.input.MockInput;
+import com.badlogic.gdx.utils.IntSet;
+
+/**
+ * Mock input whose keys are held and released by an {@link InputScript}.
+ * Presses and releases are forwarded to the current input processor like a
+ * real backend would.
+ * @author Raymond
+ */
+public class ScriptedInput extends MockInput {
+    private final IntSet pressedKeys;
+    private InputProcessor inputProcessor;
+
+    public ScriptedInput() {
+        pressedKeys = new IntSet();
+    }
+    
+    public void press(int key) {
+        if (pressedKeys.add(key) && inputProcessor != null) {
+            inputProcessor.keyDown(key);
+        }
+    }
+    
+    public void release(int key) {
+        if (pressedKeys.remove(key) && inputProcessor != null) {
+            inputProcessor.keyUp(key);
+        }
+    }
+    
+    public void hold(int key, boolean held) {
+        if (held) {
+            press(key);
+        } else {
+            release(key);
+        }
+    }
+    
+    public void releaseAll() {
+        IntSet.IntSetIterator iterator = pressedKeys.iterator();
+        while (iterator.hasNext) {
+            int key = iterator.next();
+            if (inputProcessor != null) {
+                inputProcessor.keyUp(key);
+            }
+        }
+        pressedKeys.clear();
+    }
+
+    @Override
+    public boolean isKeyPressed(int key) {
+        return pressedKeys.contains(key);
+    }
+
+    @Override
+    public void setInputProcessor(InputProcessor processor) {
+        inputProcessor = processor;
+    }
+
+    @Override
+    public InputProcessor getInputProcessor() {
+        return inputProcessor;
+    }
+}
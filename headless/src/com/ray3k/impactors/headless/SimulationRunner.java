@@ -0,0 +1,560 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Raymond Buckley.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ray3k.impactors.headless;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.ray3k.impactors.Core;
+import com.ray3k.impactors.Narrowphase;
+import com.ray3k.impactors.RenderQueue;
+import com.ray3k.impactors.Replay;
+import com.ray3k.impactors.profiling.Profiler;
+import com.ray3k.impactors.StateManager;
+import com.ray3k.impactors.states.GameState;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * Runs {@link GameState} without drawing, driving the player with an
+ * {@link InputScript} or a {@link Replay}. Ticks run as fast as possible, or
+ * at a multiple of real time when a speed is set. A new game starts whenever
+ * one ends, except when replaying. Tick throughput is logged every second,
+ * and a census of the world is logged once the tick budget is spent. When
+ * profiling, each tick counts as a frame and the percentiles are logged at
+ * the end. When hashing renders, the sprites of every tick are recorded into
+ * a {@link RenderQueue} and the hashes folded into one. When checking the
+ * narrowphase, collisions are forked even for small worlds and every
+ * parallel run is compared with a serial one. When comparing engines, the
+ * tick budget is run on the entity manager and then again on the component
+ * engine with the same seed and input, and the world checksum of every tick
+ * and the end of every game must match.
+ * @author Raymond
+ */
+public class SimulationRunner extends ApplicationAdapter {
+    public static final String TAG = "headless";
+    private static final long REPORT_INTERVAL = 1000000000L;
+    private static final int BATCH_TICKS = 1000;
+    private static final int ALLOCATION_WARMUP = 600;
+    private static final int CHECK_CHUNK_SIZE = 8;
+    private final Core core;
+    private final InputScript script;
+    private int width = 800;
+    private int height = 800;
+    private long maxTicks = 36000;
+    private float speed;
+    private boolean ecs;
+    private boolean seeded;
+    private long seed;
+    private Replay replay;
+    private FileHandle recordFile;
+    private boolean profiling;
+    private FileHandle profileFile;
+    private Profiler profiler;
+    private boolean checkingAllocations;
+    private RenderQueue renderQueue;
+    private int renderHash;
+    private long renderedTicks;
+    private boolean checkingNarrowphase;
+    private long verifiedRuns;
+    private long mismatchedRuns;
+    private long wrappedContacts;
+    private boolean comparingEngines;
+    private boolean secondEngine;
+    private final IntArray checksums = new IntArray();
+    private final IntArray gameResults = new IntArray();
+    private long comparedTicks;
+    private long divergedTick = -1;
+    private int comparedGames;
+    private int divergedGame;
+    private long allocationBudget;
+    private com.sun.management.ThreadMXBean threads;
+    private long allocatedBytes;
+    private long measuredTicks;
+    private long maxTickBytes;
+    private long maxTickAt;
+    private boolean failed;
+    private ScriptedInput input;
+    private StateManager stateManager;
+    private GameState gameState;
+    private float delta;
+    private long nanosPerTick;
+    private long ticks;
+    private int gamesEnded;
+    private long startTime;
+    private long previousTime;
+    private long lag;
+    private long lastReportTime;
+    private long lastReportTicks;
+    private boolean finished;
+
+    public SimulationRunner(Core core, InputScript script) {
+        this.core = core;
+        this.script = script;
+    }
+
+    @Override
+    public void create() {
+        GL20 gl = NullGL20.create();
+        Gdx.gl = gl;
+        Gdx.gl20 = gl;
+        Gdx.graphics = new HeadlessGraphics(width, height, gl);
+        input = new ScriptedInput();
+        Gdx.input = input;
+        
+        core.create();
+        stateManager = core.getStateManager();
+        delta = 1.0f / core.getTickRate();
+        nanosPerTick = Math.round(1000000000.0 / core.getTickRate());
+        
+        while (core.getAtlas() == null) {
+            stateManager.act(delta);
+        }
+        
+        profiler = core.getProfiler();
+        if (profileFile != null) {
+            profiler.streamTo(profileFile);
+        }
+        profiler.setEnabled(profiling || profileFile != null);
+        
+        if (checkingAllocations) {
+            threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+        
+        gameState = (GameState) stateManager.getState("game");
+        gameState.setEcs(ecs);
+        if (seeded) {
+            gameState.setSeed(seed);
+            MathUtils.random.setSeed(seed);
+        }
+        gameState.setReplay(replay);
+        gameState.setRecordFile(recordFile);
+        startGame();
+        if (replay != null) {
+            Gdx.app.log(TAG, "Replaying " + replay.getTickCount() + " ticks with seed " + replay.getSeed());
+        } else {
+            Gdx.app.log(TAG, "Running " + maxTicks + " ticks at " + core.getTickRate() + " ticks/sec on " + (ecs ? "the component engine" : "the entity manager"));
+        }
+        
+        startTime = TimeUtils.nanoTime();
+        previousTime = startTime;
+        lastReportTime = startTime;
+    }
+
+    @Override
+    public void render() {
+        if (finished) {
+            return;
+        }
+        
+        long current = TimeUtils.nanoTime();
+        
+        if (speed > 0.0f) {
+            lag += (long) ((current - previousTime) * speed);
+            previousTime = current;
+            
+            int steps = 0;
+            while (lag >= nanosPerTick && steps < BATCH_TICKS && ticks < maxTicks) {
+                tick();
+                lag -= nanosPerTick;
+                steps++;
+            }
+        } else {
+            for (int i = 0; i < BATCH_TICKS && ticks < maxTicks; i++) {
+                tick();
+            }
+        }
+        
+        current = TimeUtils.nanoTime();
+        if (current - lastReportTime >= REPORT_INTERVAL) {
+            Gdx.app.log(TAG, String.format(Locale.ROOT, "%d ticks, %.0f ticks/sec", ticks, (ticks - lastReportTicks) * 1000000000.0 / (current - lastReportTime)));
+            lastReportTime = current;
+            lastReportTicks = ticks;
+        }
+        
+        if (ticks >= maxTicks && comparingEngines && !secondEngine) {
+            switchEngines();
+        } else if (ticks >= maxTicks) {
+            finished = true;
+            finish();
+            Gdx.app.exit();
+        }
+    }
+    
+    private void tick() {
+        if (replay == null) {
+            script.step((int) ticks, input);
+        }
+        profiler.beginFrame();
+        long before = checkingAllocations ? threads.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+        stateManager.act(delta);
+        core.getAudioManager().update(delta);
+        if (checkingAllocations) {
+            measureAllocation(threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before);
+        }
+        if (profiler.isEnabled()) {
+            if (gameState.getEcsWorld() != null) {
+                gameState.getEcsWorld().census(profiler.getCounts());
+            } else {
+                gameState.getEntityManager().census(profiler.getCounts());
+            }
+        }
+        profiler.endFrame(0);
+        if (renderQueue != null && stateManager.getLoadedState() == gameState) {
+            renderQueue.clear();
+            renderQueue.setView(0.0f, 0.0f, width, height);
+            gameState.record(renderQueue, 1.0f);
+            renderHash = 31 * renderHash + renderQueue.hash();
+            renderedTicks++;
+        }
+        ticks++;
+        if (comparingEngines && stateManager.getLoadedState() == gameState) {
+            compareChecksum(gameState.checksum());
+        }
+        
+        if (stateManager.getLoadedState() != gameState) {
+            countNarrowphase();
+            gamesEnded++;
+            Gdx.app.log(TAG, "Game " + gamesEnded + " ended at tick " + ticks + " with a score of " + gameState.getScore());
+            if (comparingEngines) {
+                compareGame(gameState.getScore());
+            }
+            if (replay != null) {
+                maxTicks = ticks;
+            } else {
+                input.releaseAll();
+                startGame();
+            }
+        }
+    }
+    
+    /**
+     * Keeps the tick and checksum on the first engine, or compares them with
+     * the ones kept at the same point on the second. Ticks that end a game
+     * have no world to hash and are left out of both.
+     * @param checksum 
+     */
+    private void compareChecksum(int checksum) {
+        if (!secondEngine) {
+            checksums.add((int) ticks);
+            checksums.add(checksum);
+        } else if (comparedTicks * 2 < checksums.size) {
+            int index = (int) comparedTicks * 2;
+            comparedTicks++;
+            if (divergedTick == -1 && (checksums.get(index) != ticks || checksums.get(index + 1) != checksum)) {
+                divergedTick = Math.min(ticks, checksums.get(index));
+            }
+        }
+    }
+    
+    /**
+     * Keeps the end tick and score of a game on the first engine, or
+     * compares them with the kept ones on the second.
+     * @param score 
+     */
+    private void compareGame(int score) {
+        if (!secondEngine) {
+            gameResults.add((int) ticks);
+            gameResults.add(score);
+        } else if (gamesEnded * 2 <= gameResults.size) {
+            comparedGames++;
+            if (divergedGame == 0 && (gameResults.get(gamesEnded * 2 - 2) != ticks || gameResults.get(gamesEnded * 2 - 1) != score)) {
+                divergedGame = gamesEnded;
+                Gdx.app.error(TAG, "Game " + gamesEnded + " ended at tick " + gameResults.get(gamesEnded * 2 - 2) + " with a score of " + gameResults.get(gamesEnded * 2 - 1) + " on the entity manager");
+            }
+        }
+    }
+    
+    /**
+     * Starts the run over on the component engine with the seed and input
+     * the entity manager ran with.
+     */
+    private void switchEngines() {
+        Gdx.app.log(TAG, "Entity manager games ended: " + gamesEnded + ", world checksum: " + gameState.checksum() + ". Repeating on the component engine.");
+        secondEngine = true;
+        ecs = true;
+        ticks = 0;
+        gamesEnded = 0;
+        input.releaseAll();
+        gameState.setEcs(true);
+        gameState.setSeed(seed);
+        MathUtils.random.setSeed(seed);
+        startGame();
+    }
+    
+    private void reportComparison() {
+        if (comparedGames * 2 < gameResults.size) {
+            Gdx.app.error(TAG, "The component engine ended " + comparedGames + " games where the entity manager ended " + gameResults.size / 2);
+            failed = true;
+        }
+        
+        if (divergedTick != -1) {
+            Gdx.app.error(TAG, "Engine comparison failed: the world checksums differ from tick " + divergedTick);
+            failed = true;
+        } else if (divergedGame != 0) {
+            Gdx.app.error(TAG, "Engine comparison failed: game " + divergedGame + " ended differently");
+            failed = true;
+        } else if (!failed) {
+            Gdx.app.log(TAG, "Engine comparison passed, " + comparedGames + " games and " + comparedTicks + " tick checksums matched");
+        }
+    }
+    
+    private void startGame() {
+        stateManager.loadState("game");
+        if (checkingNarrowphase && gameState.getEntityManager() != null) {
+            Narrowphase narrowphase = gameState.getEntityManager().getNarrowphase();
+            narrowphase.setParallel(true);
+            narrowphase.setChunkSize(CHECK_CHUNK_SIZE);
+            narrowphase.setVerifying(true);
+        }
+    }
+    
+    /**
+     * Adds up the checks made by the current game's narrowphase before the
+     * game is replaced.
+     */
+    private void countNarrowphase() {
+        if (checkingNarrowphase && gameState.getEntityManager() != null) {
+            Narrowphase narrowphase = gameState.getEntityManager().getNarrowphase();
+            verifiedRuns += narrowphase.getVerifiedRuns();
+            mismatchedRuns += narrowphase.getMismatchedRuns();
+            wrappedContacts += narrowphase.getWrappedContacts();
+        }
+    }
+    
+    private void reportNarrowphase() {
+        if (ecs) {
+            Gdx.app.error(TAG, "The narrowphase check only applies to the entity manager.");
+            failed = true;
+        } else if (verifiedRuns == 0) {
+            Gdx.app.error(TAG, "No parallel narrowphase runs were checked.");
+            failed = true;
+        } else if (mismatchedRuns > 0) {
+            Gdx.app.error(TAG, "Narrowphase check failed: " + mismatchedRuns + " of " + verifiedRuns + " parallel runs differed from the serial contacts");
+            failed = true;
+        } else {
+            Gdx.app.log(TAG, "Narrowphase check passed, " + verifiedRuns + " parallel runs matched the serial contacts");
+            Gdx.app.log(TAG, wrappedContacts + " contacts were made across a world edge");
+        }
+    }
+    
+    /**
+     * Counts the bytes a tick allocated, leaving out the warmup while the
+     * JIT settles and the tick that ends a game and loads another state.
+     * @param bytes 
+     */
+    private void measureAllocation(long bytes) {
+        if (ticks >= ALLOCATION_WARMUP && stateManager.getLoadedState() == gameState) {
+            allocatedBytes += bytes;
+            measuredTicks++;
+            if (bytes > maxTickBytes) {
+                maxTickBytes = bytes;
+                maxTickAt = ticks;
+            }
+        }
+    }
+    
+    private void reportAllocations() {
+        if (measuredTicks == 0) {
+            Gdx.app.error(TAG, "No ticks were measured for allocations. Run more ticks than the " + ALLOCATION_WARMUP + " tick warmup.");
+            failed = true;
+            return;
+        }
+        
+        double perTick = (double) allocatedBytes / measuredTicks;
+        Gdx.app.log(TAG, String.format(Locale.ROOT, "Allocated %d bytes over %d measured ticks, %.1f bytes/tick, at most %d bytes at tick %d", allocatedBytes, measuredTicks, perTick, maxTickBytes, maxTickAt));
+        if (perTick > allocationBudget) {
+            Gdx.app.error(TAG, String.format(Locale.ROOT, "Allocation check failed: %.1f bytes/tick is over the budget of %d", perTick, allocationBudget));
+            failed = true;
+        } else {
+            Gdx.app.log(TAG, "Allocation check passed, budget " + allocationBudget + " bytes/tick");
+        }
+    }
+    
+    private void finish() {
+        long elapsed = TimeUtils.nanoTime() - startTime;
+        Gdx.app.log(TAG, String.format(Locale.ROOT, "Ran %d ticks in %.2f sec, %.0f ticks/sec, %.1fx real time", ticks, elapsed / 1000000000.0, ticks * 1000000000.0 / elapsed, ticks * delta * 1000000000.0 / elapsed));
+        Gdx.app.log(TAG, "Games ended: " + gamesEnded + ", current score: " + gameState.getScore());
+        if (replay != null) {
+            if (gameState.getDivergedTick() != -1) {
+                Gdx.app.error(TAG, "Replay diverged by tick " + gameState.getDivergedTick());
+            } else {
+                Gdx.app.log(TAG, "Replay matched all " + Math.min(replay.getChecksumCount(), gameState.getRecording().getChecksumCount()) + " recorded checksums");
+            }
+        }
+        Gdx.app.log(TAG, "Seed: " + gameState.getSeed() + ", world checksum: " + gameState.checksum());
+        if (renderQueue != null) {
+            Gdx.app.log(TAG, "Render hash: " + renderHash + " over " + renderedTicks + " ticks");
+        }
+        if (checkingAllocations) {
+            reportAllocations();
+        }
+        if (comparingEngines) {
+            reportComparison();
+        }
+        if (checkingNarrowphase) {
+            if (stateManager.getLoadedState() == gameState) {
+                countNarrowphase();
+            }
+            reportNarrowphase();
+        }
+        
+        ObjectIntMap<String> counts = new ObjectIntMap<String>();
+        if (gameState.getEcsWorld() != null) {
+            gameState.getEcsWorld().census(counts);
+        } else {
+            gameState.getEntityManager().census(counts);
+        }
+        
+        if (profiler.isEnabled()) {
+            StringBuilder builder = new StringBuilder();
+            profiler.describe(builder);
+            Gdx.app.log(TAG, "Profile of the last " + Profiler.WINDOW + " ticks:\n" + builder);
+        }
+        
+        Array<String> names = counts.keys().toArray();
+        names.sort();
+        int total = 0;
+        Gdx.app.log(TAG, "World census:");
+        for (String name : names) {
+            Gdx.app.log(TAG, String.format(Locale.ROOT, "  %-20s %6d", name, counts.get(name, 0)));
+            total += counts.get(name, 0);
+        }
+        Gdx.app.log(TAG, String.format(Locale.ROOT, "  %-20s %6d", "total", total));
+    }
+
+    @Override
+    public void dispose() {
+        core.dispose();
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    public void setSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public void setMaxTicks(long maxTicks) {
+        this.maxTicks = maxTicks;
+    }
+
+    /**
+     * @param speed multiple of real time to run at, or 0 to run as fast as
+     * possible
+     */
+    public void setSpeed(float speed) {
+        this.speed = speed;
+    }
+
+    public void setEcs(boolean ecs) {
+        this.ecs = ecs;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+        seeded = true;
+    }
+
+    /**
+     * Plays the log back in place of the input script and stops when its
+     * game ends. The caller should match the size, tick rate and tick
+     * budget to it.
+     * @param replay 
+     */
+    public void setReplay(Replay replay) {
+        this.replay = replay;
+    }
+
+    /**
+     * Measures the bytes allocated by each tick on the simulation thread.
+     * The run fails, exiting with status 1, if the average over the
+     * measured ticks is over the budget.
+     * @param bytesPerTick 
+     */
+    public void setAllocationBudget(long bytesPerTick) {
+        allocationBudget = bytesPerTick;
+        checkingAllocations = true;
+    }
+
+    /**
+     * Forks the collision narrowphase whenever there is more than a few
+     * pairs and repeats each forked run serially. The run fails if any
+     * contact list differs.
+     * @param checkingNarrowphase 
+     */
+    public void setCheckingNarrowphase(boolean checkingNarrowphase) {
+        this.checkingNarrowphase = checkingNarrowphase;
+    }
+
+    /**
+     * Runs the tick budget on the entity manager, then again on the
+     * component engine with the same seed, and fails the run if any tick's
+     * world checksum or any game's end tick or score differs. Needs a seed
+     * and no replay.
+     * @param comparingEngines 
+     */
+    public void setComparingEngines(boolean comparingEngines) {
+        this.comparingEngines = comparingEngines;
+    }
+
+    /**
+     * @param hashing whether to hash the sprites recorded each tick, as a
+     * check on what would be drawn
+     */
+    public void setRenderHashing(boolean hashing) {
+        renderQueue = hashing ? new RenderQueue() : null;
+    }
+
+    /**
+     * @param profiling whether to time each phase and log the percentiles
+     */
+    public void setProfiling(boolean profiling) {
+        this.profiling = profiling;
+    }
+
+    /**
+     * @param profileFile where each tick's profile is streamed as CSV, or
+     * null
+     */
+    public void setProfileFile(FileHandle profileFile) {
+        this.profileFile = profileFile;
+    }
+
+    /**
+     * @param recordFile where each game's input log is saved, or null. Each
+     * game overwrites the last, so only the final game is kept.
+     */
+    public void setRecordFile(FileHandle recordFile) {
+        this.recordFile = recordFile;
+    }
+}